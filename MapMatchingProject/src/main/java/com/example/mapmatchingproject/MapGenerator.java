@@ -1,33 +1,19 @@
 package com.example.mapmatchingproject;
 
-import com.example.mapmatchingproject.entities.Point;
+import lombok.extern.slf4j.Slf4j;
 
 import java.io.IOException;
 import java.nio.file.Files;
 import java.nio.file.Path;
-import java.util.List;
-import java.util.Locale;
 
+/**
+ * Writes a static Leaflet viewer for a GeoJSON file produced by {@code GeoJsonResultWriter}.
+ * The page holds no data itself: it fetches the file, or lets the user pick it
+ * when the browser blocks fetch() on file:// URLs.
+ */
+@Slf4j
 public class MapGenerator {
-    public static void generateHtmlMap(List<Point> gpsPoints, List<Point> matchedPoints, String filename) throws IOException {
-        StringBuilder markersJs = new StringBuilder();
-
-        for (Point point : gpsPoints) {
-            markersJs.append(String.format(Locale.US,
-                    "L.circleMarker([%.6f, %.6f], {color: 'blue'}).addTo(map);\n",
-                    point.getLat(), point.getLon()));
-        }
-
-        for (Point point : matchedPoints) {
-            markersJs.append(String.format(Locale.US,
-                    "L.circleMarker([%.6f, %.6f], {color: 'red'}).addTo(map);\n",
-                    point.getLat(), point.getLon()));
-        }
-
-        // Центруємо карту на першу GPS-точку
-        Point center = gpsPoints.get(0);
-
-        String html = String.format(Locale.US, """
+    private static final String VIEWER_TEMPLATE = """
         <!DOCTYPE html>
         <html>
         <head>
@@ -35,25 +21,56 @@ public class MapGenerator {
             <title>Map Matching Visualization</title>
             <meta name="viewport" content="width=device-width, initial-scale=1.0">
             <link rel="stylesheet" href="https://unpkg.com/leaflet/dist/leaflet.css" />
-            <style> #map { height: 100vh; } </style>
+            <style>
+                #map { height: 100vh; }
+                #picker { display: none; position: absolute; top: 10px; left: 60px; z-index: 1000; background: white; padding: 6px; }
+            </style>
         </head>
         <body>
+        <div id="picker">Open GeoJSON: <input type="file" accept=".geojson,.json" /></div>
         <div id="map"></div>
         <script src="https://unpkg.com/leaflet/dist/leaflet.js"></script>
         <script>
-            var map = L.map('map').setView([%.6f, %.6f], 16);
+            var map = L.map('map').setView([0, 0], 2);
             L.tileLayer('https://{s}.tile.openstreetmap.org/{z}/{x}/{y}.png', {
                 maxZoom: 19
             }).addTo(map);
 
-            %s
+            var colors = {gps: 'blue', matched: 'red'};
+            function colorOf(feature) {
+                return colors[feature.properties.kind] || 'green';
+            }
+
+            function show(data) {
+                var layer = L.geoJSON(data, {
+                    style: function (feature) { return {color: colorOf(feature)}; },
+                    pointToLayer: function (feature, latlng) {
+                        return L.circleMarker(latlng, {color: colorOf(feature)});
+                    }
+                }).addTo(map);
+                // Центруємо карту на всі треки
+                map.fitBounds(layer.getBounds());
+            }
+
+            var picker = document.getElementById('picker');
+            picker.querySelector('input').addEventListener('change', function (e) {
+                var reader = new FileReader();
+                reader.onload = function () { show(JSON.parse(reader.result)); };
+                reader.readAsText(e.target.files[0]);
+            });
+
+            fetch('${DATA_FILE}')
+                .then(function (response) { return response.json(); })
+                .then(show)
+                .catch(function () { picker.style.display = 'block'; });
         </script>
         </body>
         </html>
-        """, center.getLat(), center.getLon(), markersJs.toString());
+        """;
 
-        Files.writeString(Path.of("src/main/out/" + filename), html);
-        System.out.println("HTML map saved: " + filename);
+    public static void generateViewer(Path htmlFile, String geoJsonFileName) throws IOException {
+        Files.writeString(htmlFile, VIEWER_TEMPLATE.replace("${DATA_FILE}", geoJsonFileName));
+        log.info("HTML viewer saved: {}", htmlFile.getFileName());
     }
 
 }
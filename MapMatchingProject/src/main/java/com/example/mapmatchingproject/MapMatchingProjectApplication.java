@@ -1,10 +1,14 @@
 package com.example.mapmatchingproject;
 
 import org.springframework.boot.SpringApplication;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.boot.autoconfigure.SpringBootApplication;
+import org.springframework.boot.web.client.RestTemplateBuilder;
 import org.springframework.context.annotation.Bean;
 import org.springframework.web.client.RestTemplate;
 
+import java.time.Duration;
+
 @SpringBootApplication
 public class MapMatchingProjectApplication {
 
@@ -12,9 +16,14 @@ public class MapMatchingProjectApplication {
         SpringApplication.run(MapMatchingProjectApplication.class, args);
     }
 
+    /**
+     * Client for the external services (Overpass, OSRM); shard calls use their own, see {@code ShardClient}.
+     */
     @Bean
-    public RestTemplate restTemplate() {
-        return new RestTemplate();
+    public RestTemplate restTemplate(RestTemplateBuilder builder,
+                                     @Value("${mapmatching.http.connect-timeout:10s}") Duration connectTimeout,
+                                     @Value("${mapmatching.http.read-timeout:200s}") Duration readTimeout) {
+        return builder.connectTimeout(connectTimeout).readTimeout(readTimeout).build();
     }
 
 }
@@ -1,60 +1,147 @@
 package com.example.mapmatchingproject;
 
-import com.example.mapmatchingproject.clients.OverpassClient;
 import com.example.mapmatchingproject.entities.Point;
 import com.example.mapmatchingproject.entities.PointsCollection;
-import com.example.mapmatchingproject.entities.RoadSegment;
+import com.example.mapmatchingproject.entities.Trace;
+import com.example.mapmatchingproject.io.MatchResultWriter;
+import com.example.mapmatchingproject.io.OutputFormat;
 import com.example.mapmatchingproject.matchers.MapMatcher;
+import com.example.mapmatchingproject.pipeline.PipelineRun;
+import com.example.mapmatchingproject.pipeline.StartupPipeline;
+import com.example.mapmatchingproject.scheduling.MatchScheduler;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.boot.CommandLineRunner;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
 import org.springframework.stereotype.Service;
 
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Comparator;
 import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Semaphore;
 
 @Service
 @RequiredArgsConstructor
 @Slf4j
+@ConditionalOnProperty(name = "mapmatching.shard.role", havingValue = "standalone", matchIfMissing = true)
 public class MatchExecutionRunner implements CommandLineRunner {
 
 
-    private final OverpassClient overpassClient;
+    private final StartupPipeline startupPipeline;
+
+    private final MatchScheduler matchScheduler;
 
     private final List<MapMatcher> matchers;
 
+    @Value("${mapmatching.output.dir:src/main/out}")
+    private Path outputDir;
+
+    @Value("${mapmatching.output.formats:GEOJSON}")
+    private List<OutputFormat> outputFormats;
+
+    @Value("${mapmatching.output.html:true}")
+    private boolean htmlViewer;
+
+    @Value("${mapmatching.run.concurrent-matchers:false}")
+    private boolean concurrentMatchers;
+
     @Override
     public void run(String... args) throws Exception {
         log.info("=== Data initialisation ===");
 
-        PointsCollection pointsCollection = new PointsCollection();
-        List<Point> gpsPoints = pointsCollection.getPointList();
+        Files.createDirectories(outputDir);
+
+        try (PipelineRun pipeline = startupPipeline.start(PointsCollection.DEFAULT_PATH)) {
+            if (pipeline.traces().join().getTraceSet().traces().isEmpty()) {
+                log.warn("No traces in {}, nothing to match.", PointsCollection.DEFAULT_PATH);
+                return;
+            }
+            log.info("=== Running algorithms ===");
+
+            // Each matcher starts as soon as the data it needs is ready. Unless concurrent runs are
+            // enabled it also waits for the previous matcher, so execution times are not contended.
+            // Matchers without a road network go first and overlap with the network build.
+            List<MapMatcher> ordered = new ArrayList<>(matchers);
+            ordered.sort(Comparator.comparing(MapMatcher::requiresRoadNetwork));
+
+            // Shared by all matchers so that together they never submit more than the scheduler can hold
+            Semaphore inFlight = new Semaphore(matchScheduler.capacity());
+            List<CompletableFuture<Void>> runs = new ArrayList<>();
+            CompletableFuture<?> previous = CompletableFuture.completedFuture(null);
+            for (MapMatcher matcher : ordered) {
+                CompletableFuture<?> ready = matcher.requiresRoadNetwork() ? pipeline.network() : pipeline.traces();
+                if (!concurrentMatchers) ready = CompletableFuture.allOf(ready, previous);
+                CompletableFuture<Void> run = ready.thenRunAsync(() -> runMatcher(matcher, pipeline, inFlight), pipeline.executor());
+                runs.add(run);
+                previous = run;
+            }
+            CompletableFuture.allOf(runs.toArray(CompletableFuture[]::new)).join();
+
+            pipeline.timings().logSummary();
+            matchScheduler.logMetrics();
+        }
 
-        double south = pointsCollection.getSouth().getLat();
-        double west = pointsCollection.getWest().getLon();
-        double north = pointsCollection.getNorth().getLat();
-        double east = pointsCollection.getEast().getLon();
+        log.info("=== All algorithms have been successfully finished ===");
+    }
 
-        List<RoadSegment> segments = RoadSegment.buildSegmentsFromGeometry(
-                overpassClient.getJSONFromOverpass(south, west, north, east)
-        );
+    // Traces are submitted concurrently and MatchScheduler decides how many run at once
+    private void runMatcher(MapMatcher matcher, PipelineRun pipeline, Semaphore inFlight) {
+        log.info("---- Starting: {} ----" , matcher.getMatcherName());
 
-        log.info("=== Running algorithms ===");
+        List<Trace> traces = pipeline.traces().join().getTraceSet().traces();
 
-        for (MapMatcher matcher : matchers) {
-            log.info("---- Starting: {} ----" , matcher.getMatcherName());
+        if (!matcher.requiresRoadNetwork()) {
+            matcher.initContext(List.of());
+        }
 
-            matcher.initContext(segments);
+        long startTime = System.currentTimeMillis();
+        List<CompletableFuture<List<Point>>> calls = new ArrayList<>(traces.size());
+        for (Trace trace : traces) {
+            inFlight.acquireUninterruptibly();
+            calls.add(CompletableFuture.supplyAsync(() -> {
+                try {
+                    List<Point> points = matchScheduler.match(matcher, trace.toPoints());
+                    pipeline.timings().firstMatch(matcher.getMatcherName());
+                    return points;
+                } finally {
+                    inFlight.release();
+                }
+            }, pipeline.executor()));
+        }
+        List<List<Point>> matched = new ArrayList<>(traces.size());
+        for (CompletableFuture<List<Point>> call : calls) matched.add(call.join());
+        long timeTaken = System.currentTimeMillis() - startTime;
 
-            long startTime = System.currentTimeMillis();
-            List<Point> matchedPoints = matcher.match(gpsPoints);
-            long timeTaken = System.currentTimeMillis() - startTime;
+        log.info("Execution time {}: {} ms for {} traces{}", matcher.getMatcherName(), timeTaken, traces.size(),
+                concurrentMatchers ? " (concurrent with other matchers)" : "");
 
-            log.info("Execution time {}: {} ms", matcher.getMatcherName(), timeTaken);
+        try {
+            writeResults(matcher.getMatcherName(), traces, matched);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
 
-            String filename = matcher.getMatcherName() + ".html";
-            MapGenerator.generateHtmlMap(gpsPoints, matchedPoints, filename);
+    private void writeResults(String baseName, List<Trace> traces, List<List<Point>> matched) throws IOException {
+        for (OutputFormat format : outputFormats) {
+            Path file = outputDir.resolve(format.fileName(baseName));
+            try (MatchResultWriter writer = format.open(file)) {
+                for (int i = 0; i < traces.size(); i++) {
+                    Trace trace = traces.get(i);
+                    writer.write(trace.id(), trace.toPoints(), matched.get(i));
+                }
+            }
+            log.info("Results saved: {}", file);
         }
 
-        log.info("=== All algorithms have been successfully finished ===");
+        if (htmlViewer && outputFormats.contains(OutputFormat.GEOJSON)) {
+            MapGenerator.generateViewer(outputDir.resolve(baseName + ".html"), OutputFormat.GEOJSON.fileName(baseName));
+        }
     }
-}
\ No newline at end of file
+}
@@ -0,0 +1,36 @@
+package com.example.mapmatchingproject.entities;
+
+public record BoundingBox(double south, double west, double north, double east) {
+
+    public static final BoundingBox EMPTY = new BoundingBox(
+            Double.POSITIVE_INFINITY, Double.POSITIVE_INFINITY, Double.NEGATIVE_INFINITY, Double.NEGATIVE_INFINITY);
+
+    public boolean isEmpty() {
+        return south > north || west > east;
+    }
+
+    public BoundingBox include(double lat, double lon) {
+        return new BoundingBox(Math.min(south, lat), Math.min(west, lon), Math.max(north, lat), Math.max(east, lon));
+    }
+
+    public BoundingBox union(BoundingBox other) {
+        return new BoundingBox(Math.min(south, other.south), Math.min(west, other.west),
+                Math.max(north, other.north), Math.max(east, other.east));
+    }
+
+    public BoundingBox expand(double delta) {
+        return new BoundingBox(south - delta, west - delta, north + delta, east + delta);
+    }
+
+    public boolean contains(double lat, double lon) {
+        return lat >= south && lat <= north && lon >= west && lon <= east;
+    }
+
+    public double centerLat() {
+        return (south + north) / 2;
+    }
+
+    public double centerLon() {
+        return (west + east) / 2;
+    }
+}
@@ -1,26 +1,33 @@
 package com.example.mapmatchingproject.entities;
 
+import com.example.mapmatchingproject.io.TraceLoader;
 import lombok.Getter;
 
-import java.io.BufferedReader;
-import java.io.FileReader;
 import java.io.IOException;
+import java.nio.file.Path;
 import java.util.ArrayList;
 import java.util.List;
 
 @Getter
 public class PointsCollection {
-    private List<Point> pointList;
+    public static final Path DEFAULT_PATH = Path.of("src/main/resources/gps_points.csv");
+
+    private final TraceSet traceSet;
+    /** Points of the first trace only; use {@link #getTraceSet()} for multi-trace files. */
+    private final List<Point> pointList;
     private static final double DELTA = 0.01;
 
     public PointsCollection() {
+        this(DEFAULT_PATH);
+    }
 
+    public PointsCollection(Path path) {
         try {
-            pointList = loadPointsFromCSV();
+            traceSet = TraceLoader.load(path);
         } catch (IOException e) {
             throw new RuntimeException(e);
         }
-
+        pointList = traceSet.traces().isEmpty() ? new ArrayList<>() : traceSet.traces().getFirst().toPoints();
     }
 
     public List<Point> getExtendedPointList(){
@@ -34,42 +41,27 @@ public class PointsCollection {
         return extended;
     }
 
-    private static List<Point> loadPointsFromCSV() throws IOException {
-        List<Point> points = new ArrayList<>();
-        BufferedReader reader = new BufferedReader(new FileReader("src/main/resources/gps_points.csv"));
-        String line;
-        while ((line = reader.readLine()) != null) {
-            String[] parts = line.split(",");
-            double lat = Double.parseDouble(parts[0]);
-            double lon = Double.parseDouble(parts[1]);
-            points.add(new Point(lat, lon));
-        }
-        reader.close();
-        return points;
+    /**
+     * Bounding box of every loaded trace, widened by {@link #DELTA} degrees.
+     */
+    public BoundingBox getBoundingBox(){
+        return traceSet.bounds().expand(DELTA);
     }
 
     public Point getNorth(){
-        Point point = pointList.stream().max((a, b) -> (int) (a.getLat() - b.getLat())).orElse(null);
-        Point newPoint = new Point(point);
-        newPoint.setLat(newPoint.getLat() + DELTA);
-        return newPoint;
+        BoundingBox box = getBoundingBox();
+        return new Point(box.north(), box.centerLon());
     }
     public Point getSouth(){
-        Point point = pointList.stream().min((a, b) -> (int) (a.getLat() - b.getLat())).orElse(null);
-        Point newPoint = new Point(point);
-        newPoint.setLat(newPoint.getLat() - DELTA);
-        return newPoint;
+        BoundingBox box = getBoundingBox();
+        return new Point(box.south(), box.centerLon());
     }
     public Point getWest(){
-        Point point = pointList.stream().min((a, b) -> (int) (a.getLon() - b.getLon())).orElse(null);
-        Point newPoint = new Point(point);
-        newPoint.setLon(newPoint.getLon() - DELTA);
-        return newPoint;
+        BoundingBox box = getBoundingBox();
+        return new Point(box.centerLat(), box.west());
     }
     public Point getEast(){
-        Point point = pointList.stream().max((a, b) -> (int) (a.getLon() - b.getLon())).orElse(null);
-        Point newPoint = new Point(point);
-        newPoint.setLon(newPoint.getLon() + DELTA);
-        return newPoint;
+        BoundingBox box = getBoundingBox();
+        return new Point(box.centerLat(), box.east());
     }
 }
@@ -6,7 +6,14 @@ import org.json.JSONObject;
 import java.util.ArrayList;
 import java.util.List;
 
-public record RoadSegment(Point a, Point b) {
+/**
+ * Straight piece of an OSM way; {@code wayId} is -1 when the source way is unknown.
+ */
+public record RoadSegment(Point a, Point b, long wayId) {
+    public RoadSegment(Point a, Point b) {
+        this(a, b, -1);
+    }
+
     public Point project(Point p) {
         double ax = a.getLon(), ay = a.getLat();
         double bx = b.getLon(), by = b.getLat();
@@ -34,6 +41,7 @@ public record RoadSegment(Point a, Point b) {
             JSONObject way = waysArray.getJSONObject(i);
 
             if (!way.has("geometry")) continue;
+            long wayId = way.optLong("id", -1);
 
             JSONArray geometry = way.getJSONArray("geometry");
             if (geometry.length() < 2) continue;
@@ -45,7 +53,7 @@ public record RoadSegment(Point a, Point b) {
                 Point a = new Point(pointA.getDouble("lat"), pointA.getDouble("lon"));
                 Point b = new Point(pointB.getDouble("lat"), pointB.getDouble("lon"));
 
-                segments.add(new RoadSegment(a, b));
+                segments.add(new RoadSegment(a, b, wayId));
             }
         }
 
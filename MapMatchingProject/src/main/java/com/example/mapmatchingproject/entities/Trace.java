@@ -0,0 +1,39 @@
+package com.example.mapmatchingproject.entities;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * One GPS trace stored as primitive columns.
+ * Files without timestamps get the point's sequence number instead.
+ */
+public record Trace(String id, long[] timestamps, double[] lats, double[] lons) {
+
+    public int size() {
+        return lats.length;
+    }
+
+    public Point point(int index) {
+        return new Point(lats[index], lons[index]);
+    }
+
+    public List<Point> toPoints() {
+        List<Point> points = new ArrayList<>(size());
+        for (int i = 0; i < size(); i++) {
+            points.add(point(i));
+        }
+        return points;
+    }
+
+    public BoundingBox bounds() {
+        double south = Double.POSITIVE_INFINITY, west = Double.POSITIVE_INFINITY;
+        double north = Double.NEGATIVE_INFINITY, east = Double.NEGATIVE_INFINITY;
+        for (int i = 0; i < size(); i++) {
+            south = Math.min(south, lats[i]);
+            north = Math.max(north, lats[i]);
+            west = Math.min(west, lons[i]);
+            east = Math.max(east, lons[i]);
+        }
+        return new BoundingBox(south, west, north, east);
+    }
+}
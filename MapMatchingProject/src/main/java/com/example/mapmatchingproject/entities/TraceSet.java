@@ -0,0 +1,15 @@
+package com.example.mapmatchingproject.entities;
+
+import java.util.List;
+
+/**
+ * Traces loaded from one file, with the bounding box of all their points.
+ */
+public record TraceSet(List<Trace> traces, BoundingBox bounds) {
+
+    public int pointCount() {
+        int count = 0;
+        for (Trace trace : traces) count += trace.size();
+        return count;
+    }
+}
@@ -0,0 +1,339 @@
+package com.example.mapmatchingproject.graph;
+
+import com.example.mapmatchingproject.entities.Point;
+import com.example.mapmatchingproject.entities.RoadSegment;
+
+import java.lang.foreign.Arena;
+import java.lang.foreign.MemorySegment;
+import java.util.*;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.function.IntConsumer;
+
+import static java.lang.foreign.ValueLayout.JAVA_DOUBLE;
+import static java.lang.foreign.ValueLayout.JAVA_INT;
+
+/**
+ * Road graph kept outside the Java heap.
+ * - Nodes: interleaved (lat, lon) doubles.
+ * - Adjacency: CSR layout (per-node offsets, edge targets, edge weights in meters).
+ * - Segments: (node A, node B) index pairs.
+ * All memory belongs to one shared {@link Arena} and is released by {@link #close()}.
+ * <p>
+ * Dijkstra runs in pooled {@link Search} workspaces whose distance arrays live in the same arena,
+ * so routing creates no per-query garbage once each matching thread has its workspaces.
+ */
+public class OffHeapRoadGraph implements AutoCloseable {
+
+    private final Arena arena;
+    private final int nodeCount;
+    private final int segmentCount;
+
+    private final MemorySegment nodes;
+    private final MemorySegment edgeOffsets;
+    private final MemorySegment edgeTargets;
+    private final MemorySegment edgeWeights;
+    private final MemorySegment segments;
+
+    private final Queue<Search> idleSearches = new ConcurrentLinkedQueue<>();
+
+    private OffHeapRoadGraph(List<RoadSegment> roadSegments, double metersPerDegree) {
+        this.segmentCount = roadSegments.size();
+
+        // Temporary heap buffers, dropped as soon as the graph is copied off-heap
+        Map<Long, Integer> ids = new HashMap<>();
+        double[] coords = new double[segmentCount * 4];
+        int[] segNodes = new int[segmentCount * 2];
+
+        for (int i = 0; i < segmentCount; i++) {
+            RoadSegment seg = roadSegments.get(i);
+            segNodes[2 * i] = nodeId(ids, coords, seg.a());
+            segNodes[2 * i + 1] = nodeId(ids, coords, seg.b());
+        }
+        this.nodeCount = ids.size();
+
+        int[] offsets = new int[nodeCount + 1];
+        for (int node : segNodes) offsets[node + 1]++;
+        for (int i = 0; i < nodeCount; i++) offsets[i + 1] += offsets[i];
+
+        int edgeCount = offsets[nodeCount];
+        int[] targets = new int[edgeCount];
+        double[] weights = new double[edgeCount];
+        int[] fill = Arrays.copyOf(offsets, nodeCount);
+        for (int i = 0; i < segmentCount; i++) {
+            int a = segNodes[2 * i];
+            int b = segNodes[2 * i + 1];
+            RoadSegment seg = roadSegments.get(i);
+            double weight = seg.a().distanceTo(seg.b()) * metersPerDegree;
+
+            // Assuming undirected graph for roads (simplification)
+            targets[fill[a]] = b;
+            weights[fill[a]++] = weight;
+            targets[fill[b]] = a;
+            weights[fill[b]++] = weight;
+        }
+
+        this.arena = Arena.ofShared();
+        this.nodes = arena.allocate(JAVA_DOUBLE, 2L * nodeCount);
+        this.edgeOffsets = arena.allocate(JAVA_INT, nodeCount + 1L);
+        this.edgeTargets = arena.allocate(JAVA_INT, edgeCount);
+        this.edgeWeights = arena.allocate(JAVA_DOUBLE, edgeCount);
+        this.segments = arena.allocate(JAVA_INT, 2L * segmentCount);
+
+        MemorySegment.copy(coords, 0, nodes, JAVA_DOUBLE, 0, 2 * nodeCount);
+        MemorySegment.copy(offsets, 0, edgeOffsets, JAVA_INT, 0, nodeCount + 1);
+        MemorySegment.copy(targets, 0, edgeTargets, JAVA_INT, 0, edgeCount);
+        MemorySegment.copy(weights, 0, edgeWeights, JAVA_DOUBLE, 0, edgeCount);
+        MemorySegment.copy(segNodes, 0, segments, JAVA_INT, 0, 2 * segmentCount);
+    }
+
+    public static OffHeapRoadGraph build(List<RoadSegment> roadSegments, double metersPerDegree) {
+        return new OffHeapRoadGraph(roadSegments, metersPerDegree);
+    }
+
+    private static int nodeId(Map<Long, Integer> ids, double[] coords, Point p) {
+        // Round to ~1m precision to merge connected nodes
+        long key = (Math.round(p.getLat() * 1e5) << 32) ^ (Math.round(p.getLon() * 1e5) & 0xFFFFFFFFL);
+        Integer id = ids.get(key);
+        if (id != null) return id;
+
+        int newId = ids.size();
+        ids.put(key, newId);
+        coords[2 * newId] = p.getLat();
+        coords[2 * newId + 1] = p.getLon();
+        return newId;
+    }
+
+    public int nodeCount() {
+        return nodeCount;
+    }
+
+    public int segmentCount() {
+        return segmentCount;
+    }
+
+    public long offHeapBytes() {
+        return nodes.byteSize() + edgeOffsets.byteSize() + edgeTargets.byteSize()
+                + edgeWeights.byteSize() + segments.byteSize();
+    }
+
+    public double lat(int node) {
+        return nodes.getAtIndex(JAVA_DOUBLE, 2L * node);
+    }
+
+    public double lon(int node) {
+        return nodes.getAtIndex(JAVA_DOUBLE, 2L * node + 1);
+    }
+
+    public Point point(int node) {
+        return new Point(lat(node), lon(node));
+    }
+
+    public int segmentNodeA(int segment) {
+        return segments.getAtIndex(JAVA_INT, 2L * segment);
+    }
+
+    public int segmentNodeB(int segment) {
+        return segments.getAtIndex(JAVA_INT, 2L * segment + 1);
+    }
+
+    public RoadSegment roadSegment(int segment) {
+        return new RoadSegment(point(segmentNodeA(segment)), point(segmentNodeB(segment)));
+    }
+
+    /**
+     * Same projection as {@link RoadSegment#project(Point)}, read straight from native memory.
+     */
+    public Point project(int segment, Point p) {
+        int a = segmentNodeA(segment);
+        int b = segmentNodeB(segment);
+        double ax = lon(a), ay = lat(a);
+        double dx = lon(b) - ax;
+        double dy = lat(b) - ay;
+
+        double lengthSquared = dx * dx + dy * dy;
+        if (lengthSquared == 0) return new Point(ay, ax);
+
+        double t = ((p.getLon() - ax) * dx + (p.getLat() - ay) * dy) / lengthSquared;
+        t = Math.max(0, Math.min(1, t));
+        return new Point(ay + t * dy, ax + t * dx);
+    }
+
+    /**
+     * @return index of the segment closest to {@code p} (lowest index on ties), or -1 if there are none
+     */
+    public int nearestSegment(Point p) {
+        double px = p.getLon(), py = p.getLat();
+        int best = -1;
+        double minDistSq = Double.MAX_VALUE;
+        for (int i = 0; i < segmentCount; i++) {
+            double d = distanceSq(i, px, py);
+            if (d < minDistSq) {
+                minDistSq = d;
+                best = i;
+            }
+        }
+        return best;
+    }
+
+    /**
+     * Calls {@code action} for every segment whose projection of {@code p} lies within {@code maxDistDegrees}.
+     */
+    public void forEachSegmentWithin(Point p, double maxDistDegrees, IntConsumer action) {
+        double px = p.getLon(), py = p.getLat();
+        double maxDistSq = maxDistDegrees * maxDistDegrees;
+
+        for (int i = 0; i < segmentCount; i++) {
+            if (distanceSq(i, px, py) <= maxDistSq) action.accept(i);
+        }
+    }
+
+    private double distanceSq(int segment, double px, double py) {
+        int a = segmentNodeA(segment);
+        int b = segmentNodeB(segment);
+        double ax = lon(a), ay = lat(a);
+        double dx = lon(b) - ax;
+        double dy = lat(b) - ay;
+
+        double lengthSquared = dx * dx + dy * dy;
+        double t = lengthSquared == 0 ? 0 : ((px - ax) * dx + (py - ay) * dy) / lengthSquared;
+        t = Math.max(0, Math.min(1, t));
+
+        double ex = px - (ax + t * dx);
+        double ey = py - (ay + t * dy);
+        return ex * ex + ey * ey;
+    }
+
+    /**
+     * Workspace for bounded searches on this graph; close it to return it to the pool.
+     */
+    public Search openSearch() {
+        Search search = idleSearches.poll();
+        return search != null ? search : new Search();
+    }
+
+    @Override
+    public void close() {
+        arena.close();
+    }
+
+    /**
+     * Dijkstra over the CSR adjacency, bounded by {@code maxDist} meters.
+     * Distances are kept in native memory and reset through the list of touched nodes,
+     * the queue is a binary heap over primitive arrays (stale entries are skipped when polled).
+     * Results stay valid until the next {@link #run} or {@link #close()}.
+     */
+    public final class Search implements AutoCloseable {
+        private final MemorySegment distances;
+        private int[] touched = new int[256];
+        private int touchedCount;
+        private int[] heapNodes = new int[256];
+        private double[] heapDists = new double[256];
+        private int heapSize;
+        private int settled;
+
+        private Search() {
+            synchronized (arena) {
+                distances = arena.allocate(JAVA_DOUBLE, Math.max(1, nodeCount));
+            }
+            for (long i = 0; i < nodeCount; i++) distances.setAtIndex(JAVA_DOUBLE, i, Double.MAX_VALUE);
+        }
+
+        public Search run(int source, double maxDist) {
+            reset();
+            improve(source, 0.0);
+
+            while (heapSize > 0) {
+                int node = heapNodes[0];
+                double dist = heapDists[0];
+                poll();
+
+                if (dist > distance(node)) continue;
+                if (dist > maxDist) continue;
+
+                settled++;
+                int from = edgeOffsets.getAtIndex(JAVA_INT, node);
+                int to = edgeOffsets.getAtIndex(JAVA_INT, node + 1L);
+                for (int e = from; e < to; e++) {
+                    int target = edgeTargets.getAtIndex(JAVA_INT, e);
+                    double newDist = dist + edgeWeights.getAtIndex(JAVA_DOUBLE, e);
+                    if (newDist < distance(target)) improve(target, newDist);
+                }
+            }
+            return this;
+        }
+
+        /**
+         * @return distance in meters from the last source, or {@link Double#MAX_VALUE} if not reached
+         */
+        public double distance(int node) {
+            return distances.getAtIndex(JAVA_DOUBLE, node);
+        }
+
+        /** Nodes expanded by the last run. */
+        public int settled() {
+            return settled;
+        }
+
+        /** Nodes with a distance, including those reached beyond the bound but not expanded. */
+        public int reached() {
+            return touchedCount;
+        }
+
+        @Override
+        public void close() {
+            reset();
+            idleSearches.offer(this);
+        }
+
+        private void reset() {
+            for (int i = 0; i < touchedCount; i++) distances.setAtIndex(JAVA_DOUBLE, touched[i], Double.MAX_VALUE);
+            touchedCount = 0;
+            heapSize = 0;
+            settled = 0;
+        }
+
+        private void improve(int node, double dist) {
+            if (distance(node) == Double.MAX_VALUE) {
+                if (touchedCount == touched.length) touched = Arrays.copyOf(touched, touchedCount * 2);
+                touched[touchedCount++] = node;
+            }
+            distances.setAtIndex(JAVA_DOUBLE, node, dist);
+            push(node, dist);
+        }
+
+        private void push(int node, double dist) {
+            if (heapSize == heapNodes.length) {
+                heapNodes = Arrays.copyOf(heapNodes, heapSize * 2);
+                heapDists = Arrays.copyOf(heapDists, heapSize * 2);
+            }
+            int i = heapSize++;
+            while (i > 0) {
+                int parent = (i - 1) >>> 1;
+                if (heapDists[parent] <= dist) break;
+                heapNodes[i] = heapNodes[parent];
+                heapDists[i] = heapDists[parent];
+                i = parent;
+            }
+            heapNodes[i] = node;
+            heapDists[i] = dist;
+        }
+
+        // Removes the head
+        private void poll() {
+            int node = heapNodes[--heapSize];
+            double dist = heapDists[heapSize];
+            int i = 0;
+            int half = heapSize >>> 1;
+            while (i < half) {
+                int child = 2 * i + 1;
+                if (child + 1 < heapSize && heapDists[child + 1] < heapDists[child]) child++;
+                if (dist <= heapDists[child]) break;
+                heapNodes[i] = heapNodes[child];
+                heapDists[i] = heapDists[child];
+                i = child;
+            }
+            heapNodes[i] = node;
+            heapDists[i] = dist;
+        }
+    }
+}
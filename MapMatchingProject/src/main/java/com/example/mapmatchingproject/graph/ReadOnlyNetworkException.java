@@ -0,0 +1,10 @@
+package com.example.mapmatchingproject.graph;
+
+/**
+ * Thrown when a delta is applied to a road network that cannot change in place.
+ */
+public class ReadOnlyNetworkException extends RuntimeException {
+    public ReadOnlyNetworkException(String message) {
+        super(message);
+    }
+}
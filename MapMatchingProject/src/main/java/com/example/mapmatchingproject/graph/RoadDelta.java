@@ -0,0 +1,43 @@
+package com.example.mapmatchingproject.graph;
+
+import com.example.mapmatchingproject.entities.RoadSegment;
+import org.json.JSONArray;
+
+import java.util.*;
+
+/**
+ * Change to apply to a live {@link RoadNetwork}, keyed by OSM way id.
+ * An upserted way replaces all previous segments of that way; a removed way
+ * (deleted or closed) disappears from candidate search and routing.
+ */
+public record RoadDelta(Map<Long, List<RoadSegment>> upsertedWays, Set<Long> removedWays) {
+
+    public static RoadDelta upsert(JSONArray ways) {
+        Map<Long, List<RoadSegment>> upserted = new HashMap<>();
+        for (RoadSegment seg : RoadSegment.buildSegmentsFromGeometry(ways)) {
+            upserted.computeIfAbsent(seg.wayId(), _ -> new ArrayList<>()).add(seg);
+        }
+        return new RoadDelta(upserted, Set.of());
+    }
+
+    public static RoadDelta remove(Collection<Long> wayIds) {
+        return new RoadDelta(Map.of(), Set.copyOf(wayIds));
+    }
+
+    /**
+     * New contents of a tile: every way in {@code ways} is upserted, every way of
+     * {@code previousWayIds} that is no longer there is removed.
+     */
+    public static RoadDelta replaceTile(Set<Long> previousWayIds, JSONArray ways) {
+        RoadDelta upserts = upsert(ways);
+        Set<Long> removed = new HashSet<>(previousWayIds);
+        removed.removeAll(upserts.upsertedWays().keySet());
+        return new RoadDelta(upserts.upsertedWays(), removed);
+    }
+
+    public int size() {
+        int count = removedWays.size();
+        for (List<RoadSegment> segments : upsertedWays.values()) count += segments.size();
+        return count;
+    }
+}
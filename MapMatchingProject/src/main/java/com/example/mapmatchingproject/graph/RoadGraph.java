@@ -0,0 +1,157 @@
+package com.example.mapmatchingproject.graph;
+
+import com.example.mapmatchingproject.entities.Point;
+import com.example.mapmatchingproject.entities.RoadSegment;
+
+import java.util.*;
+
+/**
+ * In-memory road graph keyed by rounded coordinates, with bounded Dijkstra.
+ * {@link #withLayer} shares the base adjacency and earlier layers and adds the edges of one
+ * delta on top, so an update costs as much as the delta. An edge is skipped when a layer above
+ * its own holds its way.
+ */
+public class RoadGraph {
+    // Map from a unique Point ID (string) to a list of connected edges
+    private final Map<String, List<Edge>> adjacencyList;
+    // Helper to store actual Point objects for IDs
+    private final Map<String, Point> nodeRegistry;
+    private final double metersPerDegree;
+
+    // One layer per applied delta, oldest first
+    private final List<Layer> layers;
+    private final int overlayOnlyNodes;
+
+    public RoadGraph(List<RoadSegment> segments, double metersPerDegree) {
+        this.adjacencyList = new HashMap<>();
+        this.nodeRegistry = new HashMap<>();
+        this.metersPerDegree = metersPerDegree;
+        this.layers = List.of();
+        this.overlayOnlyNodes = 0;
+        buildGraph(segments, adjacencyList, nodeRegistry);
+    }
+
+    private RoadGraph(RoadGraph base, List<Layer> layers, int overlayOnlyNodes) {
+        this.adjacencyList = base.adjacencyList;
+        this.nodeRegistry = base.nodeRegistry;
+        this.metersPerDegree = base.metersPerDegree;
+        this.layers = layers;
+        this.overlayOnlyNodes = overlayOnlyNodes;
+    }
+
+    private void buildGraph(List<RoadSegment> segments, Map<String, List<Edge>> adjacency, Map<String, Point> registry) {
+        for (RoadSegment seg : segments) {
+            Point a = seg.a();
+            Point b = seg.b();
+            double weight = a.distanceTo(b) * metersPerDegree;
+
+            String idA = nodeId(a);
+            String idB = nodeId(b);
+
+            registry.putIfAbsent(idA, a);
+            registry.putIfAbsent(idB, b);
+
+            adjacency.computeIfAbsent(idA, _ -> new ArrayList<>()).add(new Edge(idB, weight, seg.wayId()));
+            // Assuming undirected graph for roads (simplification)
+            adjacency.computeIfAbsent(idB, _ -> new ArrayList<>()).add(new Edge(idA, weight, seg.wayId()));
+        }
+    }
+
+    /**
+     * Graph with the top layer of {@code overlay} added; this instance is left untouched.
+     */
+    public RoadGraph withLayer(RoadOverlay overlay) {
+        Map<String, List<Edge>> adjacency = new HashMap<>();
+        Map<String, Point> registry = new HashMap<>();
+        buildGraph(overlay.layerSegments(), adjacency, registry);
+
+        int newNodes = 0;
+        for (String id : registry.keySet()) {
+            if (!nodeRegistry.containsKey(id) && !inLayers(id)) newNodes++;
+        }
+        List<Layer> next = new ArrayList<>(layers.size() + 1);
+        next.addAll(layers);
+        next.add(new Layer(adjacency, Set.copyOf(overlay.layer().keySet())));
+        return new RoadGraph(this, List.copyOf(next), overlayOnlyNodes + newNodes);
+    }
+
+    /**
+     * Graph over the same base without any layer.
+     */
+    public RoadGraph withoutLayers() {
+        return layers.isEmpty() ? this : new RoadGraph(this, List.of(), 0);
+    }
+
+    public int layerCount() {
+        return layers.size();
+    }
+
+    public static String nodeId(Point p) {
+        // Round to ~1m precision to merge connected nodes
+        return String.format(Locale.US, "%.5f,%.5f", p.lat, p.lon);
+    }
+
+    public int nodeCount() {
+        return nodeRegistry.size() + overlayOnlyNodes;
+    }
+
+    /**
+     * Dijkstra from {@code startId}, bounded by {@code maxDist} meters.
+     */
+    public ShortestPaths<String> shortestDistances(String startId, double maxDist) {
+        Map<String, Double> distances = new HashMap<>();
+        PriorityQueue<PathNode> pq = new PriorityQueue<>(Comparator.comparingDouble(n -> n.dist));
+
+        distances.put(startId, 0.0);
+        pq.add(new PathNode(startId, 0.0));
+        int settled = 0;
+
+        while (!pq.isEmpty()) {
+            PathNode current = pq.poll();
+
+            if (current.dist > distances.getOrDefault(current.id, Double.MAX_VALUE)) continue;
+            if (current.dist > maxDist) continue;
+
+            settled++;
+            relax(current, adjacencyList.get(current.id), -1, distances, pq);
+            for (int level = 0; level < layers.size(); level++) {
+                relax(current, layers.get(level).adjacency().get(current.id), level, distances, pq);
+            }
+        }
+        return new ShortestPaths<>(distances, settled);
+    }
+
+    // level -1 is the base
+    private void relax(PathNode current, List<Edge> neighbors, int level,
+                       Map<String, Double> distances, PriorityQueue<PathNode> pq) {
+        if (neighbors == null) return;
+
+        for (Edge edge : neighbors) {
+            if (replacedAbove(level, edge.wayId)) continue;
+
+            double newDist = current.dist + edge.weight;
+            if (newDist < distances.getOrDefault(edge.target, Double.MAX_VALUE)) {
+                distances.put(edge.target, newDist);
+                pq.add(new PathNode(edge.target, newDist));
+            }
+        }
+    }
+
+    private boolean replacedAbove(int level, long wayId) {
+        for (int above = layers.size() - 1; above > level; above--) {
+            if (layers.get(above).ways().contains(wayId)) return true;
+        }
+        return false;
+    }
+
+    private boolean inLayers(String id) {
+        for (Layer layer : layers) {
+            if (layer.adjacency().containsKey(id)) return true;
+        }
+        return false;
+    }
+
+    private record Layer(Map<String, List<Edge>> adjacency, Set<Long> ways) {}
+    private record Edge(String target, double weight, long wayId) {}
+    private record PathNode(String id, double dist) {}
+}
@@ -0,0 +1,155 @@
+package com.example.mapmatchingproject.graph;
+
+import com.example.mapmatchingproject.entities.Point;
+import com.example.mapmatchingproject.entities.RoadSegment;
+import com.example.mapmatchingproject.spatial.LayeredSegmentIndex;
+import com.example.mapmatchingproject.spatial.SegmentDensityGrid;
+import com.example.mapmatchingproject.spatial.SegmentProjector;
+import com.example.mapmatchingproject.spatial.SegmentStore;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Immutable snapshot of the road data, built once and shared by all matchers.
+ * Exactly one of {@code graph} / {@code offHeapGraph} is set. Off-heap networks keep no heap
+ * copy of the segments: {@code baseSegments} and {@code index} are null and lookups go to native memory.
+ * <p>
+ * {@link #apply(RoadDelta)} returns the next version: base structures and earlier overlay layers
+ * are shared and only the delta is indexed, as one more layer. {@link #mergeLayers()} folds the
+ * layers into one, {@link #compact()} folds the overlay into a fresh base.
+ * An off-heap graph cannot take an overlay, so off-heap networks reject deltas.
+ */
+public record RoadNetwork(long version, List<RoadSegment> baseSegments, RoadOverlay overlay,
+                          LayeredSegmentIndex index, RoadGraph graph, OffHeapRoadGraph offHeapGraph) implements AutoCloseable {
+
+    public static final double METERS_PER_DEGREE = 111000.0;
+
+    public static RoadNetwork build(List<RoadSegment> segments, boolean offHeap) {
+        return offHeap
+                ? of(OffHeapRoadGraph.build(segments, METERS_PER_DEGREE))
+                : of(SegmentStore.from(segments), new RoadGraph(segments, METERS_PER_DEGREE));
+    }
+
+    public static RoadNetwork of(SegmentStore store, RoadGraph graph) {
+        return new RoadNetwork(0, store.segments(), RoadOverlay.EMPTY, LayeredSegmentIndex.of(store), graph, null);
+    }
+
+    public static RoadNetwork of(OffHeapRoadGraph offHeapGraph) {
+        return new RoadNetwork(0, null, RoadOverlay.EMPTY, null, null, offHeapGraph);
+    }
+
+    /**
+     * @throws ReadOnlyNetworkException if this network is off-heap
+     */
+    public RoadNetwork apply(RoadDelta delta) {
+        if (isOffHeap()) {
+            throw new ReadOnlyNetworkException(
+                    "Road deltas are not supported with an off-heap graph (mapmatching.hmm.off-heap=true)");
+        }
+        if (delta.size() == 0) return withVersion(version + 1);
+        RoadOverlay next = overlay.with(delta);
+        return new RoadNetwork(version + 1, baseSegments, next,
+                index.withLayer(next.layerSegments(), next.layer().keySet()),
+                graph.withLayer(next), null);
+    }
+
+    /**
+     * Same contents and version with the overlay in a single layer; costs as much as the overlay.
+     */
+    public RoadNetwork mergeLayers() {
+        if (overlay.depth() <= 1) return this;
+        RoadOverlay merged = overlay.merged();
+        return new RoadNetwork(version, baseSegments, merged,
+                index.withoutLayers().withLayer(merged.layerSegments(), merged.layer().keySet()),
+                graph.withoutLayers().withLayer(merged), null);
+    }
+
+    /**
+     * Full rebuild of the current contents, keeping the version number.
+     */
+    public RoadNetwork compact() {
+        RoadNetwork rebuilt = build(segments(), isOffHeap());
+        return new RoadNetwork(version, rebuilt.baseSegments, RoadOverlay.EMPTY, rebuilt.index, rebuilt.graph, rebuilt.offHeapGraph);
+    }
+
+    public RoadNetwork withVersion(long newVersion) {
+        return new RoadNetwork(newVersion, baseSegments, overlay, index, graph, offHeapGraph);
+    }
+
+    /**
+     * Current segments: base minus hidden ways, plus the overlay.
+     * Off-heap networks copy them out of native memory, without way ids.
+     */
+    public List<RoadSegment> segments() {
+        if (isOffHeap()) {
+            List<RoadSegment> result = new ArrayList<>(offHeapGraph.segmentCount());
+            for (int i = 0; i < offHeapGraph.segmentCount(); i++) result.add(offHeapGraph.roadSegment(i));
+            return result;
+        }
+        if (overlay.isEmpty()) return baseSegments;
+
+        Map<Long, List<RoadSegment>> changed = overlay.ways();
+        List<RoadSegment> result = new ArrayList<>(baseSegments.size() + overlay.segmentCount());
+        for (RoadSegment seg : baseSegments) {
+            if (!changed.containsKey(seg.wayId())) result.add(seg);
+        }
+        for (List<RoadSegment> way : changed.values()) result.addAll(way);
+        return result;
+    }
+
+    /**
+     * Number of base segments, without the overlay.
+     */
+    public int baseSegmentCount() {
+        return isOffHeap() ? offHeapGraph.segmentCount() : baseSegments.size();
+    }
+
+    /**
+     * @return closest visible segment, or null if there is none
+     */
+    public RoadSegment nearest(SegmentProjector projector, Point p) {
+        if (!isOffHeap()) return index.nearest(projector, p);
+        int segment = offHeapGraph.nearestSegment(p);
+        return segment < 0 ? null : offHeapGraph.roadSegment(segment);
+    }
+
+    /**
+     * Number of visible segments whose projection of {@code p} lies within {@code maxDistDegrees}.
+     */
+    public int countWithin(SegmentProjector projector, Point p, double maxDistDegrees) {
+        int[] count = {0};
+        if (isOffHeap()) {
+            offHeapGraph.forEachSegmentWithin(p, maxDistDegrees, _ -> count[0]++);
+        } else {
+            index.forEachWithin(projector, p, maxDistDegrees * maxDistDegrees, _ -> count[0]++);
+        }
+        return count[0];
+    }
+
+    /**
+     * Density of visible segments for candidate searches of {@code radiusDegrees}; one pass over the segments.
+     */
+    public SegmentDensityGrid densityGrid(double radiusDegrees) {
+        if (isOffHeap()) return SegmentDensityGrid.of(radiusDegrees, offHeapGraph.segmentCount(), offHeapGraph::roadSegment);
+        List<RoadSegment> visible = segments();
+        return SegmentDensityGrid.of(radiusDegrees, visible.size(), visible::get);
+    }
+
+    public boolean isOffHeap() {
+        return offHeapGraph != null;
+    }
+
+    public int nodeCount() {
+        return isOffHeap() ? offHeapGraph.nodeCount() : graph.nodeCount();
+    }
+
+    /**
+     * Frees the off-heap graph, if any. Matchers must not use the network afterwards.
+     */
+    @Override
+    public void close() {
+        if (offHeapGraph != null) offHeapGraph.close();
+    }
+}
@@ -0,0 +1,24 @@
+package com.example.mapmatchingproject.graph;
+
+import lombok.RequiredArgsConstructor;
+import org.json.JSONObject;
+import org.springframework.http.MediaType;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RestController;
+
+/**
+ * Read-only view of the live road network. Updates are in {@link RoadUpdateController}.
+ */
+@RestController
+@RequiredArgsConstructor
+@RequestMapping("/network")
+public class RoadNetworkController {
+
+    private final RoadNetworkManager networkManager;
+
+    @GetMapping(value = "/version", produces = MediaType.APPLICATION_JSON_VALUE)
+    public String version() {
+        return new JSONObject().put("version", networkManager.version()).toString();
+    }
+}
@@ -0,0 +1,228 @@
+package com.example.mapmatchingproject.graph;
+
+import com.example.mapmatchingproject.spatial.SegmentDensityGrid;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.UnaryOperator;
+
+/**
+ * Holds the live {@link RoadNetwork} and applies deltas to it.
+ * - Readers {@link #acquire()} a lease on the current snapshot and never block.
+ * - Writers are serialized; each delta publishes a new version built on the previous one,
+ *   adding one overlay layer at a cost proportional to the delta.
+ * - In the background, and with deltas applied meanwhile re-applied on top:
+ *   when the overlay outgrows {@code compaction-ratio} of the base it is folded into a new base;
+ *   otherwise, once it has more than {@code max-overlay-layers} layers, they are merged into one.
+ * - Off-heap networks are read-only: {@link #apply} throws {@link ReadOnlyNetworkException}.
+ * - Each lease also carries a {@link SegmentDensityGrid} for cost estimates. It is built when a network
+ *   is published or compacted, never on the match path; deltas in between keep the previous grid, so it
+ *   is off by at most the overlay that compaction-ratio allows.
+ * Off-heap memory of a replaced network is freed once its last lease is closed.
+ */
+@Slf4j
+@Component
+public class RoadNetworkManager {
+
+    @Value("${mapmatching.network.compaction-ratio:0.1}")
+    private double compactionRatio;
+
+    @Value("${mapmatching.network.max-overlay-layers:8}")
+    private int maxOverlayLayers;
+
+    // Radius of the candidate search the density grid approximates
+    @Value("${mapmatching.hmm.search-radius}")
+    private double searchRadiusM;
+
+    private final AtomicReference<Snapshot> current = new AtomicReference<>();
+    private final Object writeLock = new Object();
+    private final AtomicBoolean compacting = new AtomicBoolean();
+    private final ExecutorService compactor;
+    private final UnaryOperator<RoadNetwork> compaction;
+
+    public RoadNetworkManager() {
+        this.compactor = Executors.newSingleThreadExecutor(Thread.ofVirtual().name("road-compactor").factory());
+        this.compaction = RoadNetwork::compact;
+    }
+
+    // Lets tests control when compaction runs and what happens while it does
+    RoadNetworkManager(double compactionRatio, int maxOverlayLayers, double searchRadiusM, ExecutorService compactor,
+                       UnaryOperator<RoadNetwork> compaction) {
+        this.compactionRatio = compactionRatio;
+        this.maxOverlayLayers = maxOverlayLayers;
+        this.searchRadiusM = searchRadiusM;
+        this.compactor = compactor;
+        this.compaction = compaction;
+    }
+
+    public void publish(RoadNetwork network) {
+        SegmentDensityGrid density = densityGrid(network);
+        synchronized (writeLock) {
+            Snapshot old = current.get();
+            swap(network.withVersion(old == null ? 0 : old.network.version() + 1), density);
+        }
+        log.info("[Network] Published version {} with {} segments.", version(), network.baseSegmentCount());
+    }
+
+    public Lease acquire() {
+        while (true) {
+            Snapshot snapshot = current.get();
+            if (snapshot == null) throw new IllegalStateException("No road network has been published");
+            if (snapshot.handle.tryRetain()) return new Lease(snapshot.network, snapshot.density, snapshot.handle);
+        }
+    }
+
+    public long version() {
+        Snapshot snapshot = current.get();
+        return snapshot == null ? -1 : snapshot.network.version();
+    }
+
+    public RoadNetwork apply(RoadDelta delta) {
+        RoadNetwork next;
+        synchronized (writeLock) {
+            Snapshot snapshot = current.get();
+            if (snapshot == null) throw new IllegalStateException("No road network has been published");
+
+            long start = System.nanoTime();
+            next = snapshot.network.apply(delta);
+            swap(next, snapshot.density);
+            log.info("[Network] Applied delta of {} changes in {} us -> version {} (overlay {} segments).",
+                    delta.size(), (System.nanoTime() - start) / 1000, next.version(), next.overlay().segmentCount());
+        }
+        if (needsCompaction(next) || needsMerge(next)) scheduleCompaction();
+        return next;
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        compactor.close();
+        synchronized (writeLock) {
+            Snapshot old = current.getAndSet(null);
+            if (old != null) old.handle.release();
+        }
+    }
+
+    private boolean needsCompaction(RoadNetwork network) {
+        if (network.overlay().isEmpty()) return false;
+        // Removed ways add no segments but still cost a lookup, count them too
+        int overlaySize = network.overlay().segmentCount() + network.overlay().wayCount();
+        return overlaySize > compactionRatio * Math.max(1, network.baseSegmentCount());
+    }
+
+    // Every lookup walks the layers
+    private boolean needsMerge(RoadNetwork network) {
+        return network.overlay().depth() > maxOverlayLayers;
+    }
+
+    private void scheduleCompaction() {
+        if (compacting.compareAndSet(false, true)) {
+            compactor.execute(this::compact);
+        }
+    }
+
+    private void compact() {
+        try {
+            RoadNetwork source = current.get().network;
+            boolean full = needsCompaction(source);
+            long start = System.currentTimeMillis();
+            RoadNetwork compacted = full ? compaction.apply(source) : source.mergeLayers();
+            SegmentDensityGrid density = full ? densityGrid(compacted) : null;
+
+            synchronized (writeLock) {
+                RoadNetwork latest = current.get().network;
+                // Deltas applied while compacting are not in the new base yet
+                RoadNetwork next = compacted.apply(latest.overlay().changesSince(source.overlay()))
+                        .withVersion(latest.version() + 1);
+                swap(next, full ? density : current.get().density);
+                log.info("[Network] {} version {} in {} ms -> version {}.", full ? "Compacted" : "Merged overlay layers of",
+                        source.version(), System.currentTimeMillis() - start, next.version());
+            }
+        } catch (RuntimeException e) {
+            log.error("[Network] Compaction failed: {}", e.toString());
+        } finally {
+            compacting.set(false);
+        }
+
+        Snapshot snapshot = current.get();
+        if (snapshot != null && (needsCompaction(snapshot.network) || needsMerge(snapshot.network))) scheduleCompaction();
+    }
+
+    private SegmentDensityGrid densityGrid(RoadNetwork network) {
+        long start = System.nanoTime();
+        SegmentDensityGrid grid = network.densityGrid(searchRadiusM / RoadNetwork.METERS_PER_DEGREE);
+        log.debug("[Network] Density grid: {} cells in {} ms.", grid.occupiedCells(), (System.nanoTime() - start) / 1_000_000);
+        return grid;
+    }
+
+    // Caller holds writeLock
+    private void swap(RoadNetwork next, SegmentDensityGrid density) {
+        Snapshot old = current.get();
+        current.set(new Snapshot(next, density, new Handle(next)));
+        if (old != null) old.handle.release();
+    }
+
+    private record Snapshot(RoadNetwork network, SegmentDensityGrid density, Handle handle) {}
+
+    /**
+     * Reference count of one version. The manager holds one reference while the network is current.
+     */
+    private static final class Handle {
+        private final RoadNetwork owner;
+        private final AtomicInteger refs = new AtomicInteger(1);
+
+        Handle(RoadNetwork owner) {
+            this.owner = owner;
+        }
+
+        boolean tryRetain() {
+            while (true) {
+                int r = refs.get();
+                if (r <= 0) return false;
+                if (refs.compareAndSet(r, r + 1)) return true;
+            }
+        }
+
+        void release() {
+            if (refs.decrementAndGet() == 0) owner.close();
+        }
+    }
+
+    /**
+     * Consistent view of one network version; close it when the match is done.
+     */
+    public static final class Lease implements AutoCloseable {
+        private final RoadNetwork network;
+        private final SegmentDensityGrid density;
+        private final Handle handle;
+        private final AtomicBoolean closed = new AtomicBoolean();
+
+        private Lease(RoadNetwork network, SegmentDensityGrid density, Handle handle) {
+            this.network = network;
+            this.density = density;
+            this.handle = handle;
+        }
+
+        public RoadNetwork network() {
+            return network;
+        }
+
+        /**
+         * Segment density as of the last publish or compaction at or before this version.
+         */
+        public SegmentDensityGrid densityGrid() {
+            return density;
+        }
+
+        @Override
+        public void close() {
+            if (closed.compareAndSet(false, true)) handle.release();
+        }
+    }
+}
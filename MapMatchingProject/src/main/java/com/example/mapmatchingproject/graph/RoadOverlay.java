@@ -0,0 +1,123 @@
+package com.example.mapmatchingproject.graph;
+
+import com.example.mapmatchingproject.entities.RoadSegment;
+
+import java.util.*;
+
+/**
+ * Ways changed since the base network was built, as a stack of layers: one per applied delta,
+ * way id -> segments of that delta (empty when removed). A way's current segments are those of the
+ * topmost layer holding it, and base segments of every changed way are hidden.
+ * <p>
+ * {@link #with} pushes a layer on top of this one and shares everything below, so it costs as much
+ * as the delta. Lookups walk the {@link #depth()} layers; {@link #merged()} folds them into one.
+ */
+public record RoadOverlay(RoadOverlay below, Map<Long, List<RoadSegment>> layer, int depth,
+                          int segmentCount, int wayCount) {
+
+    public static final RoadOverlay EMPTY = new RoadOverlay(null, Map.of(), 0, 0, 0);
+
+    public RoadOverlay with(RoadDelta delta) {
+        Map<Long, List<RoadSegment>> next = new HashMap<>();
+        for (Long wayId : delta.removedWays()) next.put(wayId, List.of());
+        for (Map.Entry<Long, List<RoadSegment>> way : delta.upsertedWays().entrySet()) {
+            next.put(way.getKey(), List.copyOf(way.getValue()));
+        }
+
+        int segments = segmentCount, ways = wayCount;
+        for (Map.Entry<Long, List<RoadSegment>> way : next.entrySet()) {
+            List<RoadSegment> previous = segmentsOf(way.getKey());
+            if (previous == null) ways++;
+            else segments -= previous.size();
+            segments += way.getValue().size();
+        }
+        return new RoadOverlay(this, Collections.unmodifiableMap(next), depth + 1, segments, ways);
+    }
+
+    /**
+     * The same contents in a single layer.
+     */
+    public RoadOverlay merged() {
+        if (depth <= 1) return this;
+        Map<Long, List<RoadSegment>> ways = ways();
+        return new RoadOverlay(EMPTY, Collections.unmodifiableMap(ways), 1, segmentCount, wayCount);
+    }
+
+    /**
+     * Layers pushed on top of {@code older} since, folded into one delta.
+     *
+     * @throws IllegalArgumentException if this overlay does not extend {@code older}
+     */
+    public RoadDelta changesSince(RoadOverlay older) {
+        Deque<RoadOverlay> newer = new ArrayDeque<>();
+        RoadOverlay at = this;
+        while (at != older) {
+            if (at == null || at.depth == 0) throw new IllegalArgumentException("Overlay does not extend the given one");
+            newer.push(at);
+            at = at.below;
+        }
+
+        Map<Long, List<RoadSegment>> upserted = new HashMap<>();
+        Set<Long> removed = new HashSet<>();
+        for (RoadOverlay layer : newer) {
+            for (Map.Entry<Long, List<RoadSegment>> way : layer.layer.entrySet()) {
+                if (way.getValue().isEmpty()) {
+                    upserted.remove(way.getKey());
+                    removed.add(way.getKey());
+                } else {
+                    removed.remove(way.getKey());
+                    upserted.put(way.getKey(), way.getValue());
+                }
+            }
+        }
+        return new RoadDelta(upserted, removed);
+    }
+
+    /**
+     * @return current segments of a changed way, or null if the way is unchanged
+     */
+    public List<RoadSegment> segmentsOf(long wayId) {
+        for (RoadOverlay at = this; at != null && at.depth > 0; at = at.below) {
+            List<RoadSegment> segments = at.layer.get(wayId);
+            if (segments != null) return segments;
+        }
+        return null;
+    }
+
+    public boolean isEmpty() {
+        return depth == 0;
+    }
+
+    public boolean hides(RoadSegment segment) {
+        return depth > 0 && segmentsOf(segment.wayId()) != null;
+    }
+
+    /**
+     * Segments of the top layer only; O(delta).
+     */
+    public List<RoadSegment> layerSegments() {
+        List<RoadSegment> result = new ArrayList<>();
+        for (List<RoadSegment> way : layer.values()) result.addAll(way);
+        return result;
+    }
+
+    /**
+     * Current segments of every changed way, across all layers.
+     */
+    public List<RoadSegment> segments() {
+        List<RoadSegment> result = new ArrayList<>(segmentCount);
+        for (List<RoadSegment> way : ways().values()) result.addAll(way);
+        return result;
+    }
+
+    /**
+     * Every changed way with its current segments (empty when removed).
+     */
+    public Map<Long, List<RoadSegment>> ways() {
+        Map<Long, List<RoadSegment>> ways = new HashMap<>();
+        for (RoadOverlay at = this; at != null && at.depth > 0; at = at.below) {
+            for (Map.Entry<Long, List<RoadSegment>> way : at.layer.entrySet()) ways.putIfAbsent(way.getKey(), way.getValue());
+        }
+        return ways;
+    }
+}
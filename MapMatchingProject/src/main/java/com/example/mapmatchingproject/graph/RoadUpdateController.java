@@ -0,0 +1,55 @@
+package com.example.mapmatchingproject.graph;
+
+import lombok.RequiredArgsConstructor;
+import org.json.JSONObject;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.web.bind.annotation.DeleteMapping;
+import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.RequestBody;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.server.ResponseStatusException;
+
+import java.util.List;
+
+/**
+ * Live road updates. {@code POST /network/ways} takes an Overpass response ({@code elements} with
+ * way geometries) and upserts its ways; {@code DELETE /network/ways?ids=...} removes ways.
+ * The endpoints are unauthenticated, so they only exist with {@code mapmatching.network.updates-enabled=true}.
+ */
+@RestController
+@RequiredArgsConstructor
+@RequestMapping("/network")
+@ConditionalOnProperty(name = "mapmatching.network.updates-enabled", havingValue = "true")
+public class RoadUpdateController {
+
+    private final RoadNetworkManager networkManager;
+
+    @PostMapping(value = "/ways", consumes = MediaType.APPLICATION_JSON_VALUE, produces = MediaType.APPLICATION_JSON_VALUE)
+    public String upsert(@RequestBody String body) {
+        return apply(RoadDelta.upsert(new JSONObject(body).getJSONArray("elements")));
+    }
+
+    @DeleteMapping(value = "/ways", produces = MediaType.APPLICATION_JSON_VALUE)
+    public String remove(@RequestParam List<Long> ids) {
+        return apply(RoadDelta.remove(ids));
+    }
+
+    private String apply(RoadDelta delta) {
+        RoadNetwork network;
+        try {
+            network = networkManager.apply(delta);
+        } catch (ReadOnlyNetworkException e) {
+            throw new ResponseStatusException(HttpStatus.CONFLICT, e.getMessage());
+        } catch (IllegalStateException e) {
+            throw new ResponseStatusException(HttpStatus.SERVICE_UNAVAILABLE, e.getMessage());
+        }
+        return new JSONObject()
+                .put("version", network.version())
+                .put("changes", delta.size())
+                .toString();
+    }
+}
@@ -0,0 +1,10 @@
+package com.example.mapmatchingproject.graph;
+
+import java.util.Map;
+
+/**
+ * Result of a bounded Dijkstra search: distances to every reached node and the number of
+ * nodes actually expanded. Reached nodes beyond the bound are in {@code distances} but not settled.
+ */
+public record ShortestPaths<K>(Map<K, Double> distances, int settled) {
+}
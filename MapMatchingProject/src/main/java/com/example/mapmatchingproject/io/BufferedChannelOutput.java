@@ -0,0 +1,110 @@
+package com.example.mapmatchingproject.io;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.channels.WritableByteChannel;
+import java.nio.file.Path;
+
+import static java.nio.file.StandardOpenOption.*;
+
+/**
+ * Direct buffer in front of a channel. Numbers are formatted straight into the buffer,
+ * so writing a point allocates nothing.
+ */
+public final class BufferedChannelOutput implements Closeable {
+
+    private static final int BUFFER_SIZE = 64 * 1024;
+    private static final long[] POW10 = {
+            1L, 10L, 100L, 1_000L, 10_000L, 100_000L, 1_000_000L, 10_000_000L, 100_000_000L, 1_000_000_000L
+    };
+
+    private final WritableByteChannel channel;
+    private final ByteBuffer buffer = ByteBuffer.allocateDirect(BUFFER_SIZE);
+    private final byte[] digits = new byte[20];
+
+    public BufferedChannelOutput(WritableByteChannel channel) {
+        this.channel = channel;
+    }
+
+    public static BufferedChannelOutput open(Path path) throws IOException {
+        return new BufferedChannelOutput(FileChannel.open(path, CREATE, TRUNCATE_EXISTING, WRITE));
+    }
+
+    public BufferedChannelOutput put(byte b) throws IOException {
+        if (!buffer.hasRemaining()) flush();
+        buffer.put(b);
+        return this;
+    }
+
+    public BufferedChannelOutput put(char c) throws IOException {
+        return put((byte) c);
+    }
+
+    /**
+     * ASCII only; meant for constant literals.
+     */
+    public BufferedChannelOutput put(String ascii) throws IOException {
+        for (int i = 0; i < ascii.length(); i++) {
+            put((byte) ascii.charAt(i));
+        }
+        return this;
+    }
+
+    public BufferedChannelOutput put(byte[] bytes) throws IOException {
+        for (byte b : bytes) put(b);
+        return this;
+    }
+
+    public BufferedChannelOutput putLong(long value) throws IOException {
+        if (value == Long.MIN_VALUE) return put(Long.toString(value));
+        if (value < 0) {
+            put('-');
+            value = -value;
+        }
+        int n = 0;
+        do {
+            digits[n++] = (byte) ('0' + value % 10);
+            value /= 10;
+        } while (value != 0);
+        while (n > 0) put(digits[--n]);
+        return this;
+    }
+
+    /**
+     * Writes {@code value} with exactly {@code decimals} fraction digits (at most 9), like {@code %.Nf}.
+     */
+    public BufferedChannelOutput putFixed(double value, int decimals) throws IOException {
+        long scale = POW10[decimals];
+        long scaled = Math.round(Math.abs(value) * scale);
+        if (value < 0 && scaled != 0) put('-');
+
+        putLong(scaled / scale);
+        if (decimals == 0) return this;
+
+        put('.');
+        long fraction = scaled % scale;
+        for (int d = decimals - 1; d >= 0; d--) {
+            put((byte) ('0' + (fraction / POW10[d]) % 10));
+        }
+        return this;
+    }
+
+    public void flush() throws IOException {
+        buffer.flip();
+        while (buffer.hasRemaining()) {
+            channel.write(buffer);
+        }
+        buffer.clear();
+    }
+
+    @Override
+    public void close() throws IOException {
+        try {
+            flush();
+        } finally {
+            channel.close();
+        }
+    }
+}
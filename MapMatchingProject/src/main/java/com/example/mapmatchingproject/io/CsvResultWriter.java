@@ -0,0 +1,55 @@
+package com.example.mapmatchingproject.io;
+
+import com.example.mapmatchingproject.entities.Point;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+
+/**
+ * Rows {@code trace_id,kind,index,lat,lon}. Trace ids containing a comma, quote or line break
+ * are quoted as in RFC 4180.
+ */
+public class CsvResultWriter implements MatchResultWriter {
+
+    private static final int DECIMALS = 7;
+
+    private final BufferedChannelOutput out;
+
+    public CsvResultWriter(BufferedChannelOutput out) throws IOException {
+        this.out = out;
+        out.put("trace_id,kind,index,lat,lon\n");
+    }
+
+    @Override
+    public void write(String traceId, List<Point> gpsPoints, List<Point> matchedPoints) throws IOException {
+        MatchResultWriter.requireFinite(traceId, "gps", gpsPoints);
+        MatchResultWriter.requireFinite(traceId, "matched", matchedPoints);
+        byte[] id = quote(traceId).getBytes(StandardCharsets.UTF_8);
+        writeRows(id, "gps", gpsPoints);
+        writeRows(id, "matched", matchedPoints);
+    }
+
+    private void writeRows(byte[] id, String kind, List<Point> points) throws IOException {
+        for (int i = 0; i < points.size(); i++) {
+            Point p = points.get(i);
+            out.put(id).put(',').put(kind).put(',').putLong(i).put(',')
+                    .putFixed(p.getLat(), DECIMALS).put(',').putFixed(p.getLon(), DECIMALS).put('\n');
+        }
+    }
+
+    static String quote(String field) {
+        for (int i = 0; i < field.length(); i++) {
+            char c = field.charAt(i);
+            if (c == ',' || c == '"' || c == '\n' || c == '\r') {
+                return '"' + field.replace("\"", "\"\"") + '"';
+            }
+        }
+        return field;
+    }
+
+    @Override
+    public void close() throws IOException {
+        out.close();
+    }
+}
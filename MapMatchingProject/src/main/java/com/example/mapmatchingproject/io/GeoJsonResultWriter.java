@@ -0,0 +1,81 @@
+package com.example.mapmatchingproject.io;
+
+import com.example.mapmatchingproject.entities.Point;
+
+import java.io.IOException;
+import java.util.List;
+
+/**
+ * One FeatureCollection per file; per trace a "gps" MultiPoint and a "matched" LineString.
+ * A matched trace with fewer than two points is written as a Point or an empty MultiPoint,
+ * since a LineString needs at least two positions.
+ */
+public class GeoJsonResultWriter implements MatchResultWriter {
+
+    private static final int DECIMALS = 6;
+
+    private final BufferedChannelOutput out;
+    private boolean firstFeature = true;
+
+    public GeoJsonResultWriter(BufferedChannelOutput out) throws IOException {
+        this.out = out;
+        out.put("{\"type\":\"FeatureCollection\",\"features\":[\n");
+    }
+
+    @Override
+    public void write(String traceId, List<Point> gpsPoints, List<Point> matchedPoints) throws IOException {
+        MatchResultWriter.requireFinite(traceId, "gps", gpsPoints);
+        MatchResultWriter.requireFinite(traceId, "matched", matchedPoints);
+        writeFeature(traceId, "gps", "MultiPoint", gpsPoints);
+        switch (matchedPoints.size()) {
+            case 0 -> writeFeature(traceId, "matched", "MultiPoint", matchedPoints);
+            case 1 -> writeFeature(traceId, "matched", "Point", matchedPoints);
+            default -> writeFeature(traceId, "matched", "LineString", matchedPoints);
+        }
+    }
+
+    private void writeFeature(String traceId, String kind, String geometryType, List<Point> points) throws IOException {
+        boolean single = geometryType.equals("Point");
+        if (!firstFeature) out.put(",\n");
+        firstFeature = false;
+
+        out.put("{\"type\":\"Feature\",\"properties\":{\"trace\":\"");
+        writeEscaped(traceId);
+        out.put("\",\"kind\":\"").put(kind).put("\"},\"geometry\":{\"type\":\"").put(geometryType)
+                .put("\",\"coordinates\":");
+        if (!single) out.put('[');
+        for (int i = 0; i < points.size(); i++) {
+            Point p = points.get(i);
+            if (i > 0) out.put(',');
+            // GeoJSON order is [lon, lat]
+            out.put('[').putFixed(p.getLon(), DECIMALS).put(',').putFixed(p.getLat(), DECIMALS).put(']');
+        }
+        if (!single) out.put(']');
+        out.put("}}");
+    }
+
+    private void writeEscaped(String value) throws IOException {
+        for (int i = 0; i < value.length(); i++) {
+            char c = value.charAt(i);
+            if (c == '"' || c == '\\') {
+                out.put('\\').put(c);
+            } else if (c < 0x20 || c > 0x7e) {
+                out.put("\\u");
+                for (int shift = 12; shift >= 0; shift -= 4) {
+                    out.put(Character.forDigit((c >> shift) & 0xF, 16));
+                }
+            } else {
+                out.put(c);
+            }
+        }
+    }
+
+    @Override
+    public void close() throws IOException {
+        try {
+            out.put("\n]}\n");
+        } finally {
+            out.close();
+        }
+    }
+}
@@ -0,0 +1,25 @@
+package com.example.mapmatchingproject.io;
+
+import com.example.mapmatchingproject.entities.Point;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.util.List;
+
+/**
+ * Streams matched traces to a file, one {@link #write} call per trace.
+ * Points with a NaN or infinite coordinate are rejected before anything of the trace is written.
+ */
+public interface MatchResultWriter extends Closeable {
+    void write(String traceId, List<Point> gpsPoints, List<Point> matchedPoints) throws IOException;
+
+    static void requireFinite(String traceId, String kind, List<Point> points) {
+        for (int i = 0; i < points.size(); i++) {
+            Point p = points.get(i);
+            if (!Double.isFinite(p.getLat()) || !Double.isFinite(p.getLon())) {
+                throw new IllegalArgumentException("Trace " + traceId + ": " + kind + " point " + i
+                        + " has a non-finite coordinate (" + p.getLat() + ", " + p.getLon() + ")");
+            }
+        }
+    }
+}
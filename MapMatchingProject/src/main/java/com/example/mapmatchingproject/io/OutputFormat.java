@@ -0,0 +1,39 @@
+package com.example.mapmatchingproject.io;
+
+import java.io.IOException;
+import java.nio.file.Path;
+
+public enum OutputFormat {
+    GEOJSON("geojson"),
+    POLYLINE("polyline"),
+    CSV("csv");
+
+    private final String extension;
+
+    OutputFormat(String extension) {
+        this.extension = extension;
+    }
+
+    public String fileName(String baseName) {
+        return baseName + "." + extension;
+    }
+
+    public MatchResultWriter open(Path file) throws IOException {
+        BufferedChannelOutput out = BufferedChannelOutput.open(file);
+        try {
+            return switch (this) {
+                case GEOJSON -> new GeoJsonResultWriter(out);
+                case POLYLINE -> new PolylineResultWriter(out);
+                case CSV -> new CsvResultWriter(out);
+            };
+        } catch (IOException | RuntimeException e) {
+            // The writer never took ownership of the channel
+            try {
+                out.close();
+            } catch (IOException suppressed) {
+                e.addSuppressed(suppressed);
+            }
+            throw e;
+        }
+    }
+}
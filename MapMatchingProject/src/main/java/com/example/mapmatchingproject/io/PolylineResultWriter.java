@@ -0,0 +1,81 @@
+package com.example.mapmatchingproject.io;
+
+import com.example.mapmatchingproject.entities.Point;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+
+/**
+ * Tab-separated lines {@code trace_id, kind, polyline} using the encoded polyline
+ * algorithm with precision 5. Tabs, line breaks and backslashes in trace ids are written as
+ * {@code \t}, {@code \n}, {@code \r} and {@code \\}.
+ */
+public class PolylineResultWriter implements MatchResultWriter {
+
+    private static final double PRECISION = 1e5;
+
+    private final BufferedChannelOutput out;
+
+    public PolylineResultWriter(BufferedChannelOutput out) {
+        this.out = out;
+    }
+
+    @Override
+    public void write(String traceId, List<Point> gpsPoints, List<Point> matchedPoints) throws IOException {
+        MatchResultWriter.requireFinite(traceId, "gps", gpsPoints);
+        MatchResultWriter.requireFinite(traceId, "matched", matchedPoints);
+        byte[] id = escape(traceId).getBytes(StandardCharsets.UTF_8);
+        writeLine(id, "gps", gpsPoints);
+        writeLine(id, "matched", matchedPoints);
+    }
+
+    private void writeLine(byte[] id, String kind, List<Point> points) throws IOException {
+        out.put(id).put('\t').put(kind).put('\t');
+        long prevLat = 0, prevLon = 0;
+        for (Point p : points) {
+            long lat = Math.round(p.getLat() * PRECISION);
+            long lon = Math.round(p.getLon() * PRECISION);
+            encode(lat - prevLat);
+            encode(lon - prevLon);
+            prevLat = lat;
+            prevLon = lon;
+        }
+        out.put('\n');
+    }
+
+    private void encode(long delta) throws IOException {
+        long value = delta < 0 ? ~(delta << 1) : delta << 1;
+        while (value >= 0x20) {
+            out.put((byte) ((0x20 | (value & 0x1f)) + 63));
+            value >>= 5;
+        }
+        out.put((byte) (value + 63));
+    }
+
+    static String escape(String field) {
+        StringBuilder escaped = null;
+        for (int i = 0; i < field.length(); i++) {
+            char c = field.charAt(i);
+            String replacement = switch (c) {
+                case '\t' -> "\\t";
+                case '\n' -> "\\n";
+                case '\r' -> "\\r";
+                case '\\' -> "\\\\";
+                default -> null;
+            };
+            if (replacement == null) {
+                if (escaped != null) escaped.append(c);
+                continue;
+            }
+            if (escaped == null) escaped = new StringBuilder(field.length() + 8).append(field, 0, i);
+            escaped.append(replacement);
+        }
+        return escaped == null ? field : escaped.toString();
+    }
+
+    @Override
+    public void close() throws IOException {
+        out.close();
+    }
+}
@@ -0,0 +1,407 @@
+package com.example.mapmatchingproject.io;
+
+import com.example.mapmatchingproject.entities.BoundingBox;
+import com.example.mapmatchingproject.entities.Trace;
+import com.example.mapmatchingproject.entities.TraceSet;
+
+import java.io.IOException;
+import java.lang.foreign.Arena;
+import java.lang.foreign.MemorySegment;
+import java.lang.foreign.ValueLayout;
+import java.nio.ByteOrder;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+import static java.lang.foreign.ValueLayout.JAVA_BYTE;
+import static java.nio.file.StandardOpenOption.*;
+
+/**
+ * Loads GPS traces from memory-mapped files.
+ * <p>
+ * CSV: either {@code lat,lon} (one trace) or {@code trace_id,timestamp,lat,lon}.
+ * Rows of a trace must be contiguous (an id that reappears later is an error); fields must not be
+ * empty, except after a trailing comma; an optional header line is skipped.
+ * <p>
+ * Binary (little endian): {@code int magic, int version, int traceCount}, then per trace
+ * {@code int idLength, byte[] id (UTF-8), int pointCount, long[] timestamps, double[] lats, double[] lons}.
+ */
+public final class TraceLoader {
+
+    public static final String DEFAULT_TRACE_ID = "trace";
+
+    private static final int MAGIC = 0x5254_4D4D; // "MMTR"
+    private static final int VERSION = 1;
+
+    private static final ValueLayout.OfInt INT = ValueLayout.JAVA_INT_UNALIGNED.withOrder(ByteOrder.LITTLE_ENDIAN);
+    private static final ValueLayout.OfLong LONG = ValueLayout.JAVA_LONG_UNALIGNED.withOrder(ByteOrder.LITTLE_ENDIAN);
+    private static final ValueLayout.OfDouble DOUBLE = ValueLayout.JAVA_DOUBLE_UNALIGNED.withOrder(ByteOrder.LITTLE_ENDIAN);
+
+    private TraceLoader() {
+    }
+
+    public static TraceSet load(Path path) throws IOException {
+        return path.toString().endsWith(".csv") ? loadCsv(path) : loadBinary(path);
+    }
+
+    public static TraceSet loadCsv(Path path) throws IOException {
+        try (Arena arena = Arena.ofConfined();
+             FileChannel channel = FileChannel.open(path, READ)) {
+            MemorySegment data = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size(), arena);
+            return new CsvParser(data, path).parse();
+        }
+    }
+
+    public static TraceSet loadBinary(Path path) throws IOException {
+        try (Arena arena = Arena.ofConfined();
+             FileChannel channel = FileChannel.open(path, READ)) {
+            MemorySegment data = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size(), arena);
+
+            if (data.byteSize() < 12 || data.get(INT, 0) != MAGIC) {
+                throw new IOException("Not a trace file: " + path);
+            }
+            if (data.get(INT, 4) != VERSION) {
+                throw new IOException("Unsupported trace file version " + data.get(INT, 4) + ": " + path);
+            }
+
+            long limit = data.byteSize();
+            int traceCount = data.get(INT, 8);
+            // Every trace needs at least its two length fields
+            if (traceCount < 0 || traceCount > (limit - 12) / 8) {
+                throw new IOException("Invalid trace count " + traceCount + ": " + path);
+            }
+            long offset = 12;
+            List<Trace> traces = new ArrayList<>(traceCount);
+            double south = Double.POSITIVE_INFINITY, west = Double.POSITIVE_INFINITY;
+            double north = Double.NEGATIVE_INFINITY, east = Double.NEGATIVE_INFINITY;
+
+            for (int t = 0; t < traceCount; t++) {
+                int idLength = readLength(data, offset, path);
+                offset += 4;
+                if (idLength > limit - offset - 4) {
+                    throw new IOException("Trace " + t + " id length " + idLength + " exceeds file size: " + path);
+                }
+                byte[] id = new byte[idLength];
+                MemorySegment.copy(data, JAVA_BYTE, offset, id, 0, idLength);
+                offset += idLength;
+
+                int n = readLength(data, offset, path);
+                offset += 4;
+                if (n > (limit - offset) / 24) {
+                    throw new IOException("Trace " + t + " point count " + n + " exceeds file size: " + path);
+                }
+                long[] timestamps = new long[n];
+                double[] lats = new double[n];
+                double[] lons = new double[n];
+                MemorySegment.copy(data, LONG, offset, timestamps, 0, n);
+                offset += 8L * n;
+                // Coordinates are read one by one so the bounds come with the same pass
+                for (int i = 0; i < n; i++) {
+                    double lat = data.get(DOUBLE, offset + 8L * i);
+                    lats[i] = lat;
+                    south = Math.min(south, lat);
+                    north = Math.max(north, lat);
+                }
+                offset += 8L * n;
+                for (int i = 0; i < n; i++) {
+                    double lon = data.get(DOUBLE, offset + 8L * i);
+                    lons[i] = lon;
+                    west = Math.min(west, lon);
+                    east = Math.max(east, lon);
+                }
+                offset += 8L * n;
+
+                traces.add(new Trace(new String(id, StandardCharsets.UTF_8), timestamps, lats, lons));
+            }
+            return new TraceSet(traces, new BoundingBox(south, west, north, east));
+        }
+    }
+
+    private static int readLength(MemorySegment data, long offset, Path path) throws IOException {
+        if (offset + 4 > data.byteSize()) {
+            throw new IOException("Truncated trace file at byte " + offset + ": " + path);
+        }
+        int length = data.get(INT, offset);
+        if (length < 0) {
+            throw new IOException("Negative length " + length + " at byte " + offset + ": " + path);
+        }
+        return length;
+    }
+
+    public static void writeBinary(Path path, List<Trace> traces) throws IOException {
+        List<byte[]> ids = new ArrayList<>(traces.size());
+        long size = 12;
+        for (Trace trace : traces) {
+            byte[] id = trace.id().getBytes(StandardCharsets.UTF_8);
+            ids.add(id);
+            size += 4 + id.length + 4 + 24L * trace.size();
+        }
+
+        try (Arena arena = Arena.ofConfined();
+             FileChannel channel = FileChannel.open(path, CREATE, TRUNCATE_EXISTING, READ, WRITE)) {
+            MemorySegment data = channel.map(FileChannel.MapMode.READ_WRITE, 0, size, arena);
+            data.set(INT, 0, MAGIC);
+            data.set(INT, 4, VERSION);
+            data.set(INT, 8, traces.size());
+
+            long offset = 12;
+            for (int t = 0; t < traces.size(); t++) {
+                Trace trace = traces.get(t);
+                byte[] id = ids.get(t);
+                int n = trace.size();
+
+                data.set(INT, offset, id.length);
+                offset += 4;
+                MemorySegment.copy(id, 0, data, JAVA_BYTE, offset, id.length);
+                offset += id.length;
+                data.set(INT, offset, n);
+                offset += 4;
+                MemorySegment.copy(trace.timestamps(), 0, data, LONG, offset, n);
+                offset += 8L * n;
+                MemorySegment.copy(trace.lats(), 0, data, DOUBLE, offset, n);
+                offset += 8L * n;
+                MemorySegment.copy(trace.lons(), 0, data, DOUBLE, offset, n);
+                offset += 8L * n;
+            }
+            data.force();
+        }
+    }
+
+    /**
+     * Single pass over the mapped bytes. Fields are parsed in place; the only allocations
+     * are the growing column arrays and one String per trace id.
+     */
+    private static final class CsvParser {
+        private static final int MAX_FIELDS = 4;
+        private static final double[] POW10 = {
+                1e0, 1e1, 1e2, 1e3, 1e4, 1e5, 1e6, 1e7, 1e8, 1e9, 1e10, 1e11,
+                1e12, 1e13, 1e14, 1e15, 1e16, 1e17, 1e18, 1e19, 1e20, 1e21, 1e22
+        };
+
+        private final MemorySegment data;
+        private final Path path;
+        private final long[] fieldStart = new long[MAX_FIELDS];
+        private final long[] fieldEnd = new long[MAX_FIELDS];
+
+        private final List<Trace> traces = new ArrayList<>();
+        private final Set<String> finishedIds = new HashSet<>();
+        private double south = Double.POSITIVE_INFINITY, west = Double.POSITIVE_INFINITY;
+        private double north = Double.NEGATIVE_INFINITY, east = Double.NEGATIVE_INFINITY;
+
+        private String currentId;
+        private long currentIdStart = -1, currentIdEnd = -1;
+        private long[] timestamps = new long[256];
+        private double[] lats = new double[256];
+        private double[] lons = new double[256];
+        private int size;
+
+        CsvParser(MemorySegment data, Path path) {
+            this.data = data;
+            this.path = path;
+        }
+
+        TraceSet parse() throws IOException {
+            long limit = data.byteSize();
+            long pos = 0;
+            int lineNo = 0;
+            boolean firstRow = true;
+
+            while (pos < limit) {
+                long lineStart = pos;
+                while (pos < limit && data.get(JAVA_BYTE, pos) != '\n') pos++;
+                long lineEnd = pos++;
+                lineNo++;
+
+                int fields = split(lineStart, lineEnd, lineNo);
+                if (fields == 0) continue;
+                boolean header = firstRow;
+                firstRow = false;
+                if (fields != 2 && fields != 4) {
+                    throw new IOException(path + ":" + lineNo + ": expected 2 or 4 fields, got " + fields);
+                }
+
+                int latField = fields == 2 ? 0 : 2;
+                double lat = parseDouble(fieldStart[latField], fieldEnd[latField]);
+                double lon = parseDouble(fieldStart[latField + 1], fieldEnd[latField + 1]);
+                if (Double.isNaN(lat) || Double.isNaN(lon)) {
+                    if (header) continue;
+                    throw new IOException(path + ":" + lineNo + ": invalid coordinate");
+                }
+
+                long timestamp;
+                if (fields == 2) {
+                    if (currentId == null) startTrace(DEFAULT_TRACE_ID, -1, -1);
+                    timestamp = size;
+                } else {
+                    if (!sameIdAsCurrent(fieldStart[0], fieldEnd[0])) {
+                        String id = readString(fieldStart[0], fieldEnd[0]);
+                        if (finishedIds.contains(id)) {
+                            throw new IOException(path + ":" + lineNo + ": rows of trace " + id + " are not contiguous");
+                        }
+                        startTrace(id, fieldStart[0], fieldEnd[0]);
+                    }
+                    timestamp = parseLong(fieldStart[1], fieldEnd[1], lineNo);
+                }
+                add(timestamp, lat, lon);
+            }
+            finishTrace();
+
+            return new TraceSet(traces, new BoundingBox(south, west, north, east));
+        }
+
+        /**
+         * Fills fieldStart/fieldEnd with trimmed fields. A blank line has no fields and a trailing
+         * comma is ignored; any other empty field is an error.
+         */
+        private int split(long start, long end, int lineNo) throws IOException {
+            if (end > start && data.get(JAVA_BYTE, end - 1) == '\r') end--;
+
+            int count = 0;
+            long fieldFrom = start;
+            for (long i = start; i <= end; i++) {
+                if (i < end && data.get(JAVA_BYTE, i) != ',') continue;
+
+                long from = fieldFrom, s = from, e = i;
+                while (s < e && isBlank(data.get(JAVA_BYTE, s))) s++;
+                while (e > s && isBlank(data.get(JAVA_BYTE, e - 1))) e--;
+                fieldFrom = i + 1;
+                if (s == e) {
+                    // A blank line, or nothing after a trailing comma
+                    if (i == end && (count > 0 || from == start)) continue;
+                    throw new IOException(path + ":" + lineNo + ": empty field " + (count + 1));
+                }
+
+                if (count == MAX_FIELDS) {
+                    throw new IOException(path + ":" + lineNo + ": too many fields");
+                }
+                fieldStart[count] = s;
+                fieldEnd[count] = e;
+                count++;
+            }
+            return count;
+        }
+
+        private static boolean isBlank(byte b) {
+            return b == ' ' || b == '\t';
+        }
+
+        private boolean sameIdAsCurrent(long start, long end) {
+            if (currentIdStart < 0 || end - start != currentIdEnd - currentIdStart) return false;
+            for (long i = 0; i < end - start; i++) {
+                if (data.get(JAVA_BYTE, start + i) != data.get(JAVA_BYTE, currentIdStart + i)) return false;
+            }
+            return true;
+        }
+
+        private String readString(long start, long end) {
+            byte[] bytes = new byte[(int) (end - start)];
+            MemorySegment.copy(data, JAVA_BYTE, start, bytes, 0, bytes.length);
+            return new String(bytes, StandardCharsets.UTF_8);
+        }
+
+        private void startTrace(String id, long idStart, long idEnd) {
+            finishTrace();
+            currentId = id;
+            currentIdStart = idStart;
+            currentIdEnd = idEnd;
+        }
+
+        private void finishTrace() {
+            if (currentId == null || size == 0) return;
+            finishedIds.add(currentId);
+            traces.add(new Trace(currentId,
+                    Arrays.copyOf(timestamps, size), Arrays.copyOf(lats, size), Arrays.copyOf(lons, size)));
+            size = 0;
+        }
+
+        private void add(long timestamp, double lat, double lon) {
+            if (size == lats.length) {
+                timestamps = Arrays.copyOf(timestamps, size * 2);
+                lats = Arrays.copyOf(lats, size * 2);
+                lons = Arrays.copyOf(lons, size * 2);
+            }
+            timestamps[size] = timestamp;
+            lats[size] = lat;
+            lons[size] = lon;
+            size++;
+
+            south = Math.min(south, lat);
+            north = Math.max(north, lat);
+            west = Math.min(west, lon);
+            east = Math.max(east, lon);
+        }
+
+        /**
+         * Plain decimals up to 15 significant digits are parsed in place (exact, since both the
+         * mantissa and the power of ten are representable). Anything else falls back to Double.parseDouble.
+         *
+         * @return NaN if the field is not a number
+         */
+        private double parseDouble(long start, long end) {
+            long i = start;
+            byte c = data.get(JAVA_BYTE, i);
+            boolean negative = c == '-';
+            if (c == '-' || c == '+') i++;
+
+            long mantissa = 0;
+            boolean anyDigit = false;
+            int digits = 0;
+            int scale = 0;
+            boolean dot = false;
+            for (; i < end; i++) {
+                c = data.get(JAVA_BYTE, i);
+                if (c >= '0' && c <= '9') {
+                    mantissa = mantissa * 10 + (c - '0');
+                    anyDigit = true;
+                    if (mantissa != 0) digits++;
+                    if (dot) scale++;
+                    if (digits > 15 || scale >= POW10.length) return parseSlow(start, end);
+                } else if (c == '.' && !dot) {
+                    dot = true;
+                } else if (c == 'e' || c == 'E') {
+                    return parseSlow(start, end);
+                } else {
+                    return Double.NaN;
+                }
+            }
+            if (!anyDigit) return Double.NaN;
+
+            double value = mantissa / POW10[scale];
+            return negative ? -value : value;
+        }
+
+        private double parseSlow(long start, long end) {
+            try {
+                return Double.parseDouble(readString(start, end));
+            } catch (NumberFormatException e) {
+                return Double.NaN;
+            }
+        }
+
+        private long parseLong(long start, long end, int lineNo) throws IOException {
+            long i = start;
+            boolean negative = data.get(JAVA_BYTE, i) == '-';
+            if (negative) i++;
+            if (i == end) throw new IOException(path + ":" + lineNo + ": invalid timestamp");
+
+            // Accumulated negatively so that Long.MIN_VALUE parses as well
+            long value = 0;
+            for (; i < end; i++) {
+                byte c = data.get(JAVA_BYTE, i);
+                if (c < '0' || c > '9') throw new IOException(path + ":" + lineNo + ": invalid timestamp");
+                if (value < Long.MIN_VALUE / 10 || value * 10 < Long.MIN_VALUE + (c - '0')) {
+                    throw new IOException(path + ":" + lineNo + ": timestamp out of range");
+                }
+                value = value * 10 - (c - '0');
+            }
+            if (negative) return value;
+            if (value == Long.MIN_VALUE) throw new IOException(path + ":" + lineNo + ": timestamp out of range");
+            return -value;
+        }
+    }
+}
@@ -2,11 +2,37 @@ package com.example.mapmatchingproject.matchers;
 
 import com.example.mapmatchingproject.entities.Point;
 import com.example.mapmatchingproject.entities.RoadSegment;
+import com.example.mapmatchingproject.graph.RoadNetwork;
 
 import java.util.List;
 
 public interface MapMatcher {
     void initContext(List<RoadSegment> segments);
+
+    /**
+     * Initializes from structures that were already built and are shared with other matchers.
+     */
+    default void initContext(RoadNetwork network) {
+        initContext(network.segments());
+    }
+
+    /**
+     * Matchers returning false get an empty segment list and may start before road data is fetched.
+     */
+    default boolean requiresRoadNetwork() {
+        return true;
+    }
+
     List<Point> match(List<Point> rawTrace);
+
+    /**
+     * Matches against the given network snapshot. Implementations that do not override this
+     * fall back to re-initializing, which is not safe for concurrent calls.
+     */
+    default List<Point> match(List<Point> rawTrace, RoadNetwork network) {
+        initContext(network);
+        return match(rawTrace);
+    }
+
     String getMatcherName();
-}
\ No newline at end of file
+}
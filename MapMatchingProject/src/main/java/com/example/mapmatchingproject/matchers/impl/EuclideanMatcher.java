@@ -2,22 +2,37 @@ package com.example.mapmatchingproject.matchers.impl;
 
 import com.example.mapmatchingproject.entities.Point;
 import com.example.mapmatchingproject.entities.RoadSegment;
+import com.example.mapmatchingproject.graph.RoadNetwork;
 import com.example.mapmatchingproject.matchers.MapMatcher;
+import com.example.mapmatchingproject.spatial.LayeredSegmentIndex;
+import com.example.mapmatchingproject.spatial.SegmentProjector;
+import com.example.mapmatchingproject.spatial.SegmentStore;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.stereotype.Component;
 
 import java.util.List;
+import java.util.function.Function;
 import java.util.stream.Collectors;
 
 @Slf4j
 @Component
 public class EuclideanMatcher implements MapMatcher {
 
-    List<RoadSegment> segments;
+    private final SegmentProjector projector = SegmentProjector.create();
+
+    private Function<Point, RoadSegment> nearest;
 
     @Override
     public void initContext(List<RoadSegment> segments) {
-        this.segments = segments;
+        LayeredSegmentIndex index = LayeredSegmentIndex.of(SegmentStore.from(segments));
+        this.nearest = p -> index.nearest(projector, p);
+        log.info("Euclidean matcher uses the {} projection kernel.", projector.getName());
+    }
+
+    @Override
+    public void initContext(RoadNetwork network) {
+        this.nearest = p -> network.nearest(projector, p);
+        log.info("Euclidean matcher uses the {} projection kernel.", projector.getName());
     }
 
     @Override
@@ -28,25 +43,24 @@ public class EuclideanMatcher implements MapMatcher {
                 .collect(Collectors.toList());
     }
 
+    @Override
+    public List<Point> match(List<Point> rawTrace, RoadNetwork network) {
+        return rawTrace.stream()
+                .map(p -> project(network.nearest(projector, p), p))
+                .collect(Collectors.toList());
+    }
+
     @Override
     public String getMatcherName() {
         return "Euclidean";
     }
 
     public Point matchToRoad(Point gpsPoint) {
-        Point bestMatch = null;
-        double minDist = Double.MAX_VALUE;
-
-        for (RoadSegment segment : segments) {
-            Point projected = segment.project(gpsPoint);
-            double dist = gpsPoint.distanceTo(projected);
-            if (dist < minDist) {
-                minDist = dist;
-                bestMatch = projected;
-            }
-        }
-
-        return bestMatch;
+        return project(nearest.apply(gpsPoint), gpsPoint);
+    }
+
+    private static Point project(RoadSegment best, Point gpsPoint) {
+        return best == null ? null : best.project(gpsPoint);
     }
 
 
@@ -2,7 +2,19 @@ package com.example.mapmatchingproject.matchers.impl;
 
 import com.example.mapmatchingproject.entities.Point;
 import com.example.mapmatchingproject.entities.RoadSegment;
+import com.example.mapmatchingproject.graph.OffHeapRoadGraph;
+import com.example.mapmatchingproject.graph.RoadGraph;
+import com.example.mapmatchingproject.graph.RoadNetwork;
+import com.example.mapmatchingproject.graph.ShortestPaths;
 import com.example.mapmatchingproject.matchers.MapMatcher;
+import com.example.mapmatchingproject.profiling.HmmRestartEvent;
+import com.example.mapmatchingproject.profiling.HmmStepEvent;
+import com.example.mapmatchingproject.profiling.HmmTraceEvent;
+import com.example.mapmatchingproject.profiling.RouteMatrixEvent;
+import com.example.mapmatchingproject.profiling.TraceProfile;
+import com.example.mapmatchingproject.spatial.SegmentProjector;
+import com.example.mapmatchingproject.spatial.LayeredSegmentIndex;
+import jakarta.annotation.PreDestroy;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Component;
@@ -12,6 +24,10 @@ import java.util.*;
 /**
  * Fully local HMM Matcher.
  * - Implemented internal Graph and Dijkstra pathfinding.
+ * - With mapmatching.hmm.off-heap=true the graph lives in native memory (see {@link OffHeapRoadGraph}).
+ * - Prefer {@link #initContext(RoadNetwork)} so the index and graph are shared instead of rebuilt.
+ * - Emits JFR events per trace, Viterbi step, restart and distance matrix (see the profiling package);
+ *   with mapmatching.hmm.profile=true a summary of each trace is logged as well.
  */
 @Slf4j
 @Component
@@ -26,33 +42,103 @@ public class HMMMapMatcher implements MapMatcher {
 
     @Value("${mapmatching.hmm.search-radius}")
     private double searchRadiusM;
-    private static final double METERS_PER_DEGREE = 111000.0;
+
+    @Value("${mapmatching.hmm.off-heap:false}")
+    private boolean offHeap;
+
+    @Value("${mapmatching.hmm.profile:false}")
+    private boolean profileTraces;
+
+    // Only traces at least this slow are summarized
+    @Value("${mapmatching.hmm.profile-min-ms:0}")
+    private long profileMinMillis;
+
+    private static final double METERS_PER_DEGREE = RoadNetwork.METERS_PER_DEGREE;
+    // Limit search range to improve performance (e.g., 2km)
+    private static final double MAX_SEARCH_DIST = 2000.0;
+
+    private final SegmentProjector projector = SegmentProjector.create();
 
     private RoutingService router;
     private SpatialIndex spatialIndex;
+    // Network built by initContext(List) itself; shared networks are closed by their owner
+    private RoadNetwork ownedNetwork;
 
     @Override
     public void initContext(List<RoadSegment> segments) {
-        this.spatialIndex = new DefaultSpatialIndex(segments);
-        this.router = new GraphRoutingService(segments);
-        log.info("[HMM] Initialized with {} road segments.", segments.size());
+        releaseOwnedNetwork();
+        this.ownedNetwork = RoadNetwork.build(segments, offHeap);
+        useNetwork(ownedNetwork);
+    }
+
+    @Override
+    public void initContext(RoadNetwork network) {
+        releaseOwnedNetwork();
+        useNetwork(network);
+    }
+
+    private void useNetwork(RoadNetwork network) {
+        Services services = servicesFor(network);
+        this.spatialIndex = services.spatialIndex();
+        this.router = services.router();
+        if (network.isOffHeap()) {
+            OffHeapRoadGraph graph = network.offHeapGraph();
+            log.info("[HMM] Initialized off-heap graph: {} segments, {} nodes, {} bytes.",
+                    graph.segmentCount(), graph.nodeCount(), graph.offHeapBytes());
+        } else {
+            log.info("[HMM] Initialized with {} road segments.", network.index().size());
+        }
+    }
+
+    // Lightweight views over the shared structures, no copying
+    private Services servicesFor(RoadNetwork network) {
+        if (network.isOffHeap()) {
+            OffHeapGraphService service = new OffHeapGraphService(network.offHeapGraph());
+            return new Services(service, service);
+        }
+        return new Services(new DefaultSpatialIndex(network.index(), projector), new GraphRoutingService(network.graph()));
+    }
+
+    @PreDestroy
+    public void releaseOwnedNetwork() {
+        if (ownedNetwork != null) {
+            ownedNetwork.close();
+            ownedNetwork = null;
+        }
     }
 
     @Override
     public List<Point> match(List<Point> gpsTrace) {
+        return match(gpsTrace, spatialIndex, router);
+    }
+
+    @Override
+    public List<Point> match(List<Point> gpsTrace, RoadNetwork network) {
+        Services services = servicesFor(network);
+        return match(gpsTrace, services.spatialIndex(), services.router());
+    }
+
+    private List<Point> match(List<Point> gpsTrace, SpatialIndex spatialIndex, RoutingService router) {
         if (gpsTrace.isEmpty()) return new ArrayList<>();
 
         long startTime = System.currentTimeMillis();
-        System.out.println("[HMM] Starting match for " + gpsTrace.size() + " GPS points.");
+        log.debug("[HMM] Starting match for {} GPS points.", gpsTrace.size());
+        HmmTraceEvent traceEvent = new HmmTraceEvent();
+        traceEvent.begin();
+        // Only needed for the trace event or the summary log
+        TraceProfile profile = traceEvent.isEnabled() || profileTraces ? new TraceProfile(gpsTrace.size()) : null;
 
         // 1. Get Candidates
+        long candidateStart = System.nanoTime();
         List<TimeStep> timeSteps = new ArrayList<>();
         for (int i = 0; i < gpsTrace.size(); i++) {
             Point p = gpsTrace.get(i);
             List<Candidate> candidates = spatialIndex.findCandidates(p, searchRadiusM);
             timeSteps.add(new TimeStep(p, candidates));
-            System.out.printf("[HMM] Point %d: Found %d candidates within %.1fm%n", i, candidates.size(), searchRadiusM);
+            if (profile != null) profile.candidatesFound(i, candidates.size());
+            log.debug("[HMM] Point {}: Found {} candidates within {}m", i, candidates.size(), searchRadiusM);
         }
+        if (profile != null) profile.candidateSearch(System.nanoTime() - candidateStart);
 
         // 2. Initialize First Step
         Map<Candidate, Double> previousProbabilities = new HashMap<>();
@@ -68,13 +154,16 @@ public class HMMMapMatcher implements MapMatcher {
         for (int t = 1; t < timeSteps.size(); t++) {
             TimeStep currentStep = timeSteps.get(t);
             TimeStep prevStep = timeSteps.get(t - 1);
-
-            System.out.printf("[HMM] Step %d/%d: Computing local graph routes (%d x %d)... ",
-                    t, timeSteps.size() - 1, prevStep.candidates.size(), currentStep.candidates.size());
+            HmmStepEvent stepEvent = new HmmStepEvent();
+            stepEvent.begin();
+            long stepStart = System.nanoTime();
 
             // Fetch matrix locally
-            double[][] distanceMatrix = router.getDistanceMatrix(prevStep.candidates, currentStep.candidates);
-            System.out.println("Done.");
+            RouteMatrix route = router.getDistanceMatrix(prevStep.candidates, currentStep.candidates);
+            double[][] distanceMatrix = route.distances();
+            long routeNanos = System.nanoTime() - stepStart;
+            log.debug("[HMM] Step {}/{}: Computed local graph routes ({} x {}) in {} us.", t, timeSteps.size() - 1,
+                    prevStep.candidates.size(), currentStep.candidates.size(), routeNanos / 1000);
 
             Map<Candidate, Double> currentProbabilities = new HashMap<>();
             Map<Candidate, Candidate> backPointer = new HashMap<>();
@@ -111,15 +200,39 @@ public class HMMMapMatcher implements MapMatcher {
                 }
             }
 
-            if (!anyPathFound && !currentStep.candidates.isEmpty()) {
-                System.out.println("[HMM] WARNING: Chain broken at step " + t + ". Restarting.");
+            boolean chainBroken = !anyPathFound && !currentStep.candidates.isEmpty();
+            if (chainBroken) {
+                log.debug("[HMM] Chain broken at step {}. Restarting.", t);
                 for (Candidate c : currentStep.candidates) {
                     currentProbabilities.put(c, Math.log(emissionProbability(currentStep.observation, c)));
                 }
+                if (profile != null) profile.restart(t);
+                HmmRestartEvent restartEvent = new HmmRestartEvent();
+                if (restartEvent.shouldCommit()) {
+                    restartEvent.step = t;
+                    restartEvent.candidates = currentStep.candidates.size();
+                    restartEvent.linearDistance = linearDist;
+                    restartEvent.commit();
+                }
             }
 
             previousProbabilities = currentProbabilities;
             pathBackPointers.add(backPointer);
+
+            if (profile != null) {
+                profile.step(t, prevStep.candidates.size(), currentStep.candidates.size(), route.nodesSettled(),
+                        routeNanos, System.nanoTime() - stepStart);
+            }
+            stepEvent.end();
+            if (stepEvent.shouldCommit()) {
+                stepEvent.step = t;
+                stepEvent.fromCandidates = prevStep.candidates.size();
+                stepEvent.toCandidates = currentStep.candidates.size();
+                stepEvent.matrixCells = prevStep.candidates.size() * currentStep.candidates.size();
+                stepEvent.nodesSettled = route.nodesSettled();
+                stepEvent.chainBroken = chainBroken;
+                stepEvent.commit();
+            }
         }
 
         // 4. Backtrack
@@ -148,7 +261,17 @@ public class HMMMapMatcher implements MapMatcher {
             }
         }
 
-        System.out.println("[HMM] Finished. Total time: " + (System.currentTimeMillis() - startTime) + "ms");
+        long totalTime = System.currentTimeMillis() - startTime;
+        log.debug("[HMM] Finished. Total time: {}ms", totalTime);
+
+        traceEvent.end();
+        if (profile != null && traceEvent.shouldCommit()) {
+            profile.fill(traceEvent);
+            traceEvent.commit();
+        }
+        if (profileTraces && totalTime >= profileMinMillis) {
+            log.info("[HMM] Profile: {}", profile.summary(totalTime));
+        }
         return result;
     }
 
@@ -185,15 +308,33 @@ public class HMMMapMatcher implements MapMatcher {
         return p1.distanceTo(p2) * METERS_PER_DEGREE;
     }
 
+    private static void commit(RouteMatrixEvent event, String graph, int sources, int destinations, long nodesSettled) {
+        event.end();
+        if (event.shouldCommit()) {
+            event.graph = graph;
+            event.sources = sources;
+            event.destinations = destinations;
+            event.searches = 2 * sources;
+            event.nodesSettled = nodesSettled;
+            event.commit();
+        }
+    }
+
     // --- Inner Classes ---
 
     public static class Candidate {
         public Point snappedPoint;
         public RoadSegment segment;
+        // Segment index in the off-heap graph, -1 for heap candidates
+        public int segmentIndex = -1;
         public Candidate(Point snappedPoint, RoadSegment segment) {
             this.snappedPoint = snappedPoint;
             this.segment = segment;
         }
+        public Candidate(Point snappedPoint, RoadSegment segment, int segmentIndex) {
+            this(snappedPoint, segment);
+            this.segmentIndex = segmentIndex;
+        }
     }
 
     private static class TimeStep {
@@ -206,71 +347,51 @@ public class HMMMapMatcher implements MapMatcher {
     }
 
     private interface RoutingService {
-        double[][] getDistanceMatrix(List<Candidate> sources, List<Candidate> destinations);
+        RouteMatrix getDistanceMatrix(List<Candidate> sources, List<Candidate> destinations);
     }
 
+    /**
+     * Route distances in meters (-1 when unreachable) and the Dijkstra nodes settled to get them.
+     */
+    private record RouteMatrix(double[][] distances, long nodesSettled) {}
+
     private interface SpatialIndex {
         List<Candidate> findCandidates(Point p, double radiusMeters);
     }
 
-    private record DefaultSpatialIndex(List<RoadSegment> segments) implements SpatialIndex {
+    private record Services(SpatialIndex spatialIndex, RoutingService router) {}
+
+    private record DefaultSpatialIndex(LayeredSegmentIndex index, SegmentProjector projector) implements SpatialIndex {
 
         @Override
-            public List<Candidate> findCandidates(Point p, double radiusMeters) {
-                List<Candidate> results = new ArrayList<>();
-                double radiusDegrees = radiusMeters / METERS_PER_DEGREE;
-                for (RoadSegment seg : segments) {
-                    Point projected = seg.project(p);
-                    if (p.distanceTo(projected) <= radiusDegrees) {
-                        results.add(new Candidate(projected, seg));
-                    }
-                }
-                return results;
-            }
+        public List<Candidate> findCandidates(Point p, double radiusMeters) {
+            List<Candidate> results = new ArrayList<>();
+            double radiusDegrees = radiusMeters / METERS_PER_DEGREE;
+            index.forEachWithin(projector, p, radiusDegrees * radiusDegrees,
+                    seg -> results.add(new Candidate(seg.project(p), seg)));
+            return results;
         }
+    }
 
     /**
      * LOCAL GRAPH ROUTING SERVICE
-     * Implements Dijkstra's algorithm in-memory.
+     * Distance matrices over the shared in-memory {@link RoadGraph}.
      */
     private class GraphRoutingService implements RoutingService {
-        // Map from a unique Point ID (string) to a list of connected edges
-        private final Map<String, List<Edge>> adjacencyList = new HashMap<>();
-        // Helper to store actual Point objects for IDs
-        private final Map<String, Point> nodeRegistry = new HashMap<>();
-
-        public GraphRoutingService(List<RoadSegment> segments) {
-            buildGraph(segments);
-        }
-
-        private void buildGraph(List<RoadSegment> segments) {
-            for (RoadSegment seg : segments) {
-                Point a = seg.a();
-                Point b = seg.b();
-                double weight = distanceMeters(a, b);
-
-                String idA = getId(a);
-                String idB = getId(b);
-
-                nodeRegistry.putIfAbsent(idA, a);
-                nodeRegistry.putIfAbsent(idB, b);
-
-                adjacencyList.computeIfAbsent(idA, _ -> new ArrayList<>()).add(new Edge(idB, weight));
-                // Assuming undirected graph for roads (simplification)
-                adjacencyList.computeIfAbsent(idB, _ -> new ArrayList<>()).add(new Edge(idA, weight));
-            }
-        }
+        private final RoadGraph graph;
 
-        private String getId(Point p) {
-            // Round to ~1m precision to merge connected nodes
-            return String.format(Locale.US, "%.5f,%.5f", p.lat, p.lon);
+        public GraphRoutingService(RoadGraph graph) {
+            this.graph = graph;
         }
 
         @Override
-        public double[][] getDistanceMatrix(List<Candidate> sources, List<Candidate> destinations) {
+        public RouteMatrix getDistanceMatrix(List<Candidate> sources, List<Candidate> destinations) {
+            RouteMatrixEvent event = new RouteMatrixEvent();
+            event.begin();
             int rows = sources.size();
             int cols = destinations.size();
             double[][] matrix = new double[rows][cols];
+            long nodesSettled = 0;
 
             // For each source, calculate distance to all destinations
             for (int i = 0; i < rows; i++) {
@@ -278,8 +399,11 @@ public class HMMMapMatcher implements MapMatcher {
 
                 // Optimization: Instead of full Dijkstra for every cell,
                 // we run Dijkstra from the Source's segment endpoints once per source.
-                Map<String, Double> distsFromA = runDijkstra(getId(src.segment.a()));
-                Map<String, Double> distsFromB = runDijkstra(getId(src.segment.b()));
+                ShortestPaths<String> pathsFromA = graph.shortestDistances(RoadGraph.nodeId(src.segment.a()), MAX_SEARCH_DIST);
+                ShortestPaths<String> pathsFromB = graph.shortestDistances(RoadGraph.nodeId(src.segment.b()), MAX_SEARCH_DIST);
+                nodesSettled += pathsFromA.settled() + pathsFromB.settled();
+                Map<String, Double> distsFromA = pathsFromA.distances();
+                Map<String, Double> distsFromB = pathsFromB.distances();
 
                 double distSrcToA = distanceMeters(src.snappedPoint, src.segment.a());
                 double distSrcToB = distanceMeters(src.snappedPoint, src.segment.b());
@@ -293,8 +417,8 @@ public class HMMMapMatcher implements MapMatcher {
                         continue;
                     }
 
-                    String idDstA = getId(dst.segment.a());
-                    String idDstB = getId(dst.segment.b());
+                    String idDstA = RoadGraph.nodeId(dst.segment.a());
+                    String idDstB = RoadGraph.nodeId(dst.segment.b());
                     double distDstToA = distanceMeters(dst.snappedPoint, dst.segment.a());
                     double distDstToB = distanceMeters(dst.snappedPoint, dst.segment.b());
 
@@ -313,7 +437,8 @@ public class HMMMapMatcher implements MapMatcher {
                     matrix[i][j] = (min == Double.MAX_VALUE) ? -1.0 : min;
                 }
             }
-            return matrix;
+            commit(event, "heap", rows, cols, nodesSettled);
+            return new RouteMatrix(matrix, nodesSettled);
         }
 
         private double getPathDist(double startOffset, Map<String, Double> graphDists, String targetNode, double endOffset) {
@@ -321,38 +446,78 @@ public class HMMMapMatcher implements MapMatcher {
             if (graphDist == null) return Double.MAX_VALUE;
             return startOffset + graphDist + endOffset;
         }
+    }
 
-        private Map<String, Double> runDijkstra(String startId) {
-            Map<String, Double> distances = new HashMap<>();
-            PriorityQueue<PathNode> pq = new PriorityQueue<>(Comparator.comparingDouble(n -> n.dist));
-
-            distances.put(startId, 0.0);
-            pq.add(new PathNode(startId, 0.0));
-
-            // Limit search range to improve performance (e.g., 2km)
-            double MAX_SEARCH_DIST = 2000.0;
-
-            while (!pq.isEmpty()) {
-                PathNode current = pq.poll();
+    /**
+     * OFF-HEAP GRAPH SERVICE
+     * Spatial lookups and Dijkstra read directly from {@link OffHeapRoadGraph} memory.
+     */
+    private class OffHeapGraphService implements SpatialIndex, RoutingService {
+        private final OffHeapRoadGraph graph;
 
-                if (current.dist > distances.getOrDefault(current.id, Double.MAX_VALUE)) continue;
-                if (current.dist > MAX_SEARCH_DIST) continue;
+        OffHeapGraphService(OffHeapRoadGraph graph) {
+            this.graph = graph;
+        }
 
-                List<Edge> neighbors = adjacencyList.get(current.id);
-                if (neighbors == null) continue;
+        @Override
+        public List<Candidate> findCandidates(Point p, double radiusMeters) {
+            List<Candidate> results = new ArrayList<>();
+            graph.forEachSegmentWithin(p, radiusMeters / METERS_PER_DEGREE,
+                    i -> results.add(new Candidate(graph.project(i, p), graph.roadSegment(i), i)));
+            return results;
+        }
 
-                for (Edge edge : neighbors) {
-                    double newDist = current.dist + edge.weight;
-                    if (newDist < distances.getOrDefault(edge.target, Double.MAX_VALUE)) {
-                        distances.put(edge.target, newDist);
-                        pq.add(new PathNode(edge.target, newDist));
+        @Override
+        public RouteMatrix getDistanceMatrix(List<Candidate> sources, List<Candidate> destinations) {
+            RouteMatrixEvent event = new RouteMatrixEvent();
+            event.begin();
+            int rows = sources.size();
+            int cols = destinations.size();
+            double[][] matrix = new double[rows][cols];
+            long nodesSettled = 0;
+
+            try (OffHeapRoadGraph.Search distsFromA = graph.openSearch();
+                 OffHeapRoadGraph.Search distsFromB = graph.openSearch()) {
+                for (int i = 0; i < rows; i++) {
+                    Candidate src = sources.get(i);
+                    distsFromA.run(graph.segmentNodeA(src.segmentIndex), MAX_SEARCH_DIST);
+                    distsFromB.run(graph.segmentNodeB(src.segmentIndex), MAX_SEARCH_DIST);
+                    nodesSettled += distsFromA.settled() + distsFromB.settled();
+
+                    double distSrcToA = distanceMeters(src.snappedPoint, src.segment.a());
+                    double distSrcToB = distanceMeters(src.snappedPoint, src.segment.b());
+
+                    for (int j = 0; j < cols; j++) {
+                        Candidate dst = destinations.get(j);
+
+                        if (src.segmentIndex == dst.segmentIndex) {
+                            matrix[i][j] = distanceMeters(src.snappedPoint, dst.snappedPoint);
+                            continue;
+                        }
+
+                        int dstA = graph.segmentNodeA(dst.segmentIndex);
+                        int dstB = graph.segmentNodeB(dst.segmentIndex);
+                        double distDstToA = distanceMeters(dst.snappedPoint, dst.segment.a());
+                        double distDstToB = distanceMeters(dst.snappedPoint, dst.segment.b());
+
+                        double d1 = getPathDist(distSrcToA, distsFromA, dstA, distDstToA);
+                        double d2 = getPathDist(distSrcToA, distsFromA, dstB, distDstToB);
+                        double d3 = getPathDist(distSrcToB, distsFromB, dstA, distDstToA);
+                        double d4 = getPathDist(distSrcToB, distsFromB, dstB, distDstToB);
+
+                        double min = Math.min(Math.min(d1, d2), Math.min(d3, d4));
+                        matrix[i][j] = (min == Double.MAX_VALUE) ? -1.0 : min;
                     }
                 }
             }
-            return distances;
+            commit(event, "off-heap", rows, cols, nodesSettled);
+            return new RouteMatrix(matrix, nodesSettled);
         }
 
-        private record Edge(String target, double weight) {}
-        private record PathNode(String id, double dist) {}
+        private double getPathDist(double startOffset, OffHeapRoadGraph.Search graphDists, int targetNode, double endOffset) {
+            double graphDist = graphDists.distance(targetNode);
+            if (graphDist == Double.MAX_VALUE) return Double.MAX_VALUE;
+            return startOffset + graphDist + endOffset;
+        }
     }
-}
\ No newline at end of file
+}
@@ -28,6 +28,11 @@ public class OSRMMapMatcher implements MapMatcher {
         log.info("OSRMMapMatcher is ready (uses external graph).");
     }
 
+    @Override
+    public boolean requiresRoadNetwork() {
+        return false;
+    }
+
     @Override
     public List<Point> match(List<Point> rawTrace) {
         try {
@@ -0,0 +1,22 @@
+package com.example.mapmatchingproject.pipeline;
+
+import com.example.mapmatchingproject.entities.PointsCollection;
+import com.example.mapmatchingproject.graph.RoadNetwork;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+
+/**
+ * Handles to the stages started by {@link StartupPipeline#start}.
+ * Closing waits for running stages; the network itself belongs to {@code RoadNetworkManager}.
+ */
+public record PipelineRun(CompletableFuture<PointsCollection> traces,
+                          CompletableFuture<RoadNetwork> network,
+                          StageTimings timings,
+                          ExecutorService executor) implements AutoCloseable {
+
+    @Override
+    public void close() {
+        executor.close();
+    }
+}
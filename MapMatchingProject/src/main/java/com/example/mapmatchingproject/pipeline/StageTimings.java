@@ -0,0 +1,71 @@
+package com.example.mapmatchingproject.pipeline;
+
+import lombok.extern.slf4j.Slf4j;
+
+import java.util.Comparator;
+import java.util.List;
+import java.util.OptionalLong;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Supplier;
+
+/**
+ * Start offset and duration of every pipeline stage, relative to the pipeline start,
+ * and the time until the first trace was matched.
+ */
+@Slf4j
+public class StageTimings {
+
+    private final long startNanos = System.nanoTime();
+    private final ConcurrentLinkedQueue<Stage> stages = new ConcurrentLinkedQueue<>();
+    private final AtomicLong firstMatchMs = new AtomicLong(-1);
+
+    public <T> T measure(String name, Supplier<T> action) {
+        long from = System.nanoTime();
+        T result = action.get();
+        long to = System.nanoTime();
+
+        Stage stage = new Stage(name, millis(from - startNanos), millis(to - from));
+        stages.add(stage);
+        log.info("[Pipeline] {} finished in {} ms (started at +{} ms)", name, stage.durationMs(), stage.startOffsetMs());
+        return result;
+    }
+
+    /**
+     * Call when a trace result is produced; only the first call is recorded.
+     */
+    public void firstMatch(String matcherName) {
+        long elapsed = elapsedMillis();
+        if (firstMatchMs.compareAndSet(-1, elapsed)) {
+            log.info("[Pipeline] Time to first match ({}): {} ms", matcherName, elapsed);
+        }
+    }
+
+    public OptionalLong firstMatchMillis() {
+        long elapsed = firstMatchMs.get();
+        return elapsed < 0 ? OptionalLong.empty() : OptionalLong.of(elapsed);
+    }
+
+    public long elapsedMillis() {
+        return millis(System.nanoTime() - startNanos);
+    }
+
+    public List<Stage> stages() {
+        return stages.stream().sorted(Comparator.comparingLong(Stage::startOffsetMs)).toList();
+    }
+
+    public void logSummary() {
+        log.info("[Pipeline] Stage summary (total {} ms):", elapsedMillis());
+        for (Stage stage : stages()) {
+            log.info("[Pipeline]   {}: +{} ms, {} ms", stage.name(), stage.startOffsetMs(), stage.durationMs());
+        }
+        firstMatchMillis().ifPresent(ms -> log.info("[Pipeline]   first match: +{} ms", ms));
+    }
+
+    private static long millis(long nanos) {
+        return TimeUnit.NANOSECONDS.toMillis(nanos);
+    }
+
+    public record Stage(String name, long startOffsetMs, long durationMs) {}
+}
@@ -0,0 +1,108 @@
+package com.example.mapmatchingproject.pipeline;
+
+import com.example.mapmatchingproject.clients.OverpassClient;
+import com.example.mapmatchingproject.entities.BoundingBox;
+import com.example.mapmatchingproject.entities.PointsCollection;
+import com.example.mapmatchingproject.entities.RoadSegment;
+import com.example.mapmatchingproject.graph.OffHeapRoadGraph;
+import com.example.mapmatchingproject.graph.RoadGraph;
+import com.example.mapmatchingproject.graph.RoadNetwork;
+import com.example.mapmatchingproject.graph.RoadNetworkManager;
+import com.example.mapmatchingproject.spatial.SegmentStore;
+import lombok.extern.slf4j.Slf4j;
+import org.json.JSONArray;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.nio.file.Path;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.function.Function;
+
+/**
+ * Staged asynchronous startup:
+ * <pre>
+ * trace loading -> overpass fetch -> segment parsing -+-> spatial index build -+-> road network
+ *                                                     +-> graph build ---------+
+ * </pre>
+ * Each stage starts as soon as its inputs are ready; index and graph are built concurrently.
+ * In off-heap mode the graph also serves candidate search, so no heap index is built.
+ * Without traces nothing is fetched and the network is empty. A failed stage fails every stage
+ * after it, and {@link PipelineRun#network()} completes with its exception.
+ * The finished network is published to {@link RoadNetworkManager}, which owns it from then on.
+ */
+@Slf4j
+@Component
+public class StartupPipeline {
+
+    private final OverpassClient overpassClient;
+
+    private final RoadNetworkManager networkManager;
+
+    private final Function<List<RoadSegment>, SegmentStore> indexBuild;
+
+    private final Function<List<RoadSegment>, RoadGraph> graphBuild;
+
+    @Value("${mapmatching.hmm.off-heap:false}")
+    private boolean offHeap;
+
+    @Autowired
+    public StartupPipeline(OverpassClient overpassClient, RoadNetworkManager networkManager) {
+        this(overpassClient, networkManager, SegmentStore::from, s -> new RoadGraph(s, RoadNetwork.METERS_PER_DEGREE));
+    }
+
+    // Lets tests observe and hold the heap index and graph builds
+    StartupPipeline(OverpassClient overpassClient, RoadNetworkManager networkManager,
+                    Function<List<RoadSegment>, SegmentStore> indexBuild, Function<List<RoadSegment>, RoadGraph> graphBuild) {
+        this.overpassClient = overpassClient;
+        this.networkManager = networkManager;
+        this.indexBuild = indexBuild;
+        this.graphBuild = graphBuild;
+    }
+
+    public PipelineRun start(Path traceFile) {
+        ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor();
+        StageTimings timings = new StageTimings();
+
+        CompletableFuture<PointsCollection> traces = CompletableFuture.supplyAsync(
+                () -> timings.measure("trace loading", () -> new PointsCollection(traceFile)), executor);
+
+        CompletableFuture<JSONArray> roadJson = stage(traces, "overpass fetch", timings, executor, points -> {
+            if (points.getTraceSet().traces().isEmpty()) {
+                log.info("[Pipeline] No traces in {}, skipping the road data fetch.", traceFile);
+                return new JSONArray();
+            }
+            BoundingBox box = points.getBoundingBox();
+            return overpassClient.getJSONFromOverpass(box.south(), box.west(), box.north(), box.east());
+        });
+
+        CompletableFuture<List<RoadSegment>> segments = stage(roadJson, "segment parsing", timings, executor,
+                RoadSegment::buildSegmentsFromGeometry);
+
+        CompletableFuture<SegmentStore> index = offHeap
+                ? CompletableFuture.completedFuture(null)
+                : stage(segments, "spatial index build", timings, executor, indexBuild);
+
+        CompletableFuture<Graphs> graphs = stage(segments, "graph build", timings, executor, s -> offHeap
+                ? new Graphs(null, OffHeapRoadGraph.build(s, RoadNetwork.METERS_PER_DEGREE))
+                : new Graphs(graphBuild.apply(s), null));
+
+        CompletableFuture<RoadNetwork> network = index.thenCombine(graphs, (store, g) -> {
+            RoadNetwork built = g.offHeap() != null ? RoadNetwork.of(g.offHeap()) : RoadNetwork.of(store, g.heap());
+            networkManager.publish(built);
+            return built;
+        });
+
+        return new PipelineRun(traces, network, timings, executor);
+    }
+
+    private static <T, R> CompletableFuture<R> stage(CompletableFuture<T> input, String name, StageTimings timings,
+                                                     ExecutorService executor, Function<T, R> action) {
+        return input.thenApplyAsync(value -> timings.measure(name, () -> action.apply(value)), executor);
+    }
+
+    private record Graphs(RoadGraph heap, OffHeapRoadGraph offHeap) {}
+}
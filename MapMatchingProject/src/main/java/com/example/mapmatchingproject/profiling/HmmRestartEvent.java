@@ -0,0 +1,25 @@
+package com.example.mapmatchingproject.profiling;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+
+@Name("mapmatching.HmmRestart")
+@Label("HMM Chain Restart")
+@Category({"Map Matching", "HMM"})
+@Description("No route connected any candidate of the previous point, Viterbi restarted")
+@StackTrace(false)
+public class HmmRestartEvent extends Event {
+    @Label("Step")
+    public int step;
+
+    @Label("Candidates")
+    public int candidates;
+
+    @Label("Linear Distance")
+    @Description("Straight-line distance between the two points, meters")
+    public double linearDistance;
+}
@@ -0,0 +1,33 @@
+package com.example.mapmatchingproject.profiling;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+
+@Name("mapmatching.HmmStep")
+@Label("HMM Viterbi Step")
+@Category({"Map Matching", "HMM"})
+@Description("Transition between two consecutive points of a trace")
+@StackTrace(false)
+public class HmmStepEvent extends Event {
+    @Label("Step")
+    public int step;
+
+    @Label("Previous Candidates")
+    public int fromCandidates;
+
+    @Label("Current Candidates")
+    public int toCandidates;
+
+    @Label("Matrix Cells")
+    public int matrixCells;
+
+    @Label("Nodes Settled")
+    public long nodesSettled;
+
+    @Label("Chain Broken")
+    public boolean chainBroken;
+}
@@ -0,0 +1,40 @@
+package com.example.mapmatchingproject.profiling;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+import jdk.jfr.Timespan;
+
+@Name("mapmatching.HmmTrace")
+@Label("HMM Trace")
+@Category({"Map Matching", "HMM"})
+@Description("One trace matched by HMMMapMatcher")
+@StackTrace(false)
+public class HmmTraceEvent extends Event {
+    @Label("Points")
+    public int points;
+
+    @Label("Candidates")
+    @Description("Candidates found over all points")
+    public long candidates;
+
+    @Label("Max Candidates")
+    public int maxCandidates;
+
+    @Label("Restarts")
+    public int restarts;
+
+    @Label("Nodes Settled")
+    public long nodesSettled;
+
+    @Label("Candidate Search Time")
+    @Timespan(Timespan.NANOSECONDS)
+    public long candidateTime;
+
+    @Label("Routing Time")
+    @Timespan(Timespan.NANOSECONDS)
+    public long routingTime;
+}
@@ -0,0 +1,30 @@
+package com.example.mapmatchingproject.profiling;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+
+@Name("mapmatching.RouteMatrix")
+@Label("Route Distance Matrix")
+@Category({"Map Matching", "Routing"})
+@Description("Bounded Dijkstra searches for one candidate distance matrix")
+@StackTrace(false)
+public class RouteMatrixEvent extends Event {
+    @Label("Graph")
+    public String graph;
+
+    @Label("Sources")
+    public int sources;
+
+    @Label("Destinations")
+    public int destinations;
+
+    @Label("Searches")
+    public int searches;
+
+    @Label("Nodes Settled")
+    public long nodesSettled;
+}
@@ -0,0 +1,86 @@
+package com.example.mapmatchingproject.profiling;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+
+/**
+ * Counters for one HMM match, filled in as the match runs; only allocated when
+ * {@link HmmTraceEvent} is enabled or the per-trace summary log is on. Nothing is formatted
+ * until {@link #summary}.
+ */
+public class TraceProfile {
+    private final int points;
+    private long candidates;
+    private int maxCandidates;
+    private int maxCandidatesPoint;
+    private long nodesSettled;
+    private long candidateNanos;
+    private long routingNanos;
+    private long viterbiNanos;
+    private final List<Integer> restarts = new ArrayList<>();
+
+    private int slowestStep = -1;
+    private long slowestStepNanos;
+    private int slowestStepFrom;
+    private int slowestStepTo;
+    private long slowestStepNodes;
+
+    public TraceProfile(int points) {
+        this.points = points;
+    }
+
+    public void candidatesFound(int point, int count) {
+        candidates += count;
+        if (count > maxCandidates) {
+            maxCandidates = count;
+            maxCandidatesPoint = point;
+        }
+    }
+
+    public void candidateSearch(long nanos) {
+        candidateNanos += nanos;
+    }
+
+    public void step(int step, int fromCandidates, int toCandidates, long nodes, long routeNanos, long totalNanos) {
+        nodesSettled += nodes;
+        routingNanos += routeNanos;
+        viterbiNanos += totalNanos - routeNanos;
+        if (totalNanos > slowestStepNanos) {
+            slowestStep = step;
+            slowestStepNanos = totalNanos;
+            slowestStepFrom = fromCandidates;
+            slowestStepTo = toCandidates;
+            slowestStepNodes = nodes;
+        }
+    }
+
+    public void restart(int step) {
+        restarts.add(step);
+    }
+
+    public void fill(HmmTraceEvent event) {
+        event.points = points;
+        event.candidates = candidates;
+        event.maxCandidates = maxCandidates;
+        event.restarts = restarts.size();
+        event.nodesSettled = nodesSettled;
+        event.candidateTime = candidateNanos;
+        event.routingTime = routingNanos;
+    }
+
+    public String summary(long totalMillis) {
+        StringBuilder sb = new StringBuilder();
+        sb.append(String.format(Locale.US, "%d points in %d ms: %d candidates (max %d at point %d), %d nodes settled",
+                points, totalMillis, candidates, maxCandidates, maxCandidatesPoint, nodesSettled));
+        sb.append(String.format(Locale.US, "; candidates %.1f ms, routing %.1f ms, viterbi %.1f ms",
+                candidateNanos / 1e6, routingNanos / 1e6, viterbiNanos / 1e6));
+        sb.append("; restarts ").append(restarts.size());
+        if (!restarts.isEmpty()) sb.append(" at steps ").append(restarts);
+        if (slowestStep >= 0) {
+            sb.append(String.format(Locale.US, "; slowest step %d (%dx%d) %.1f ms, %d nodes",
+                    slowestStep, slowestStepFrom, slowestStepTo, slowestStepNanos / 1e6, slowestStepNodes));
+        }
+        return sb.toString();
+    }
+}
@@ -0,0 +1,10 @@
+package com.example.mapmatchingproject.scheduling;
+
+/**
+ * Thrown by {@link MatchScheduler} when a trace is shed instead of matched.
+ */
+public class MatchRejectedException extends RuntimeException {
+    public MatchRejectedException(String message) {
+        super(message);
+    }
+}
@@ -0,0 +1,279 @@
+package com.example.mapmatchingproject.scheduling;
+
+import com.example.mapmatchingproject.entities.Point;
+import com.example.mapmatchingproject.graph.RoadNetworkManager;
+import com.example.mapmatchingproject.matchers.MapMatcher;
+import com.example.mapmatchingproject.matchers.impl.EuclideanMatcher;
+import com.example.mapmatchingproject.spatial.SegmentDensityGrid;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.ArrayDeque;
+import java.util.List;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Admission control in front of the {@link MapMatcher} beans.
+ * - Each trace gets a cost estimate: points x candidates^2 for HMM-like matchers, since every
+ *   Viterbi step fills a candidates x candidates matrix. Candidate density is looked up in the
+ *   {@link SegmentDensityGrid} of the leased network, built by {@link RoadNetworkManager} when the
+ *   network was published or compacted, so estimating neither scans the segments nor locks.
+ * - Traces run while fewer than {@code max-concurrent} are running and the summed cost stays within
+ *   {@code cost-budget}; a trace alone may exceed the budget so nothing waits forever.
+ * - Others wait in a bounded FIFO queue, so a large trace at the head is not overtaken indefinitely.
+ * - Traces above {@code max-trace-cost}, or that find the queue full or time out, are handled by
+ *   {@link OverflowPolicy}: matched with {@link EuclideanMatcher} or rejected. At most
+ *   {@code max-fallback-concurrent} fallbacks run at once; beyond that traces are rejected.
+ */
+@Slf4j
+@Component
+@RequiredArgsConstructor
+public class MatchScheduler {
+
+    private static final int SAMPLE_POINTS = 16;
+
+    private final RoadNetworkManager networkManager;
+    private final EuclideanMatcher fallbackMatcher;
+
+    // 0 means one per available processor
+    @Value("${mapmatching.scheduler.max-concurrent:0}")
+    private int maxConcurrent;
+
+    @Value("${mapmatching.scheduler.queue-capacity:100}")
+    private int queueCapacity;
+
+    @Value("${mapmatching.scheduler.cost-budget:2000000}")
+    private long costBudget;
+
+    @Value("${mapmatching.scheduler.max-trace-cost:1000000}")
+    private long maxTraceCost;
+
+    @Value("${mapmatching.scheduler.queue-timeout:30s}")
+    private Duration queueTimeout;
+
+    @Value("${mapmatching.scheduler.overflow:FALLBACK}")
+    private OverflowPolicy overflowPolicy;
+
+    @Value("${mapmatching.scheduler.max-fallback-concurrent:4}")
+    private int maxFallbackConcurrent;
+
+    private final ReentrantLock lock = new ReentrantLock();
+    private final Condition changed = lock.newCondition();
+    private final ArrayDeque<Ticket> queue = new ArrayDeque<>();
+    private int running;
+    private long inFlightCost;
+    private int runningFallbacks;
+    private int maxQueueDepth;
+
+    private final LongAdder admitted = new LongAdder();
+    private final LongAdder tooCostly = new LongAdder();
+    private final LongAdder queueFull = new LongAdder();
+    private final LongAdder timedOut = new LongAdder();
+    private final LongAdder fallbacks = new LongAdder();
+    private final LongAdder fallbackFull = new LongAdder();
+    private final LongAdder rejected = new LongAdder();
+
+    /**
+     * Matches {@code trace} once admitted; network matchers run on the current network snapshot.
+     *
+     * @throws MatchRejectedException if the trace is shed
+     */
+    public List<Point> match(MapMatcher matcher, List<Point> trace) {
+        long cost = estimateCost(matcher, trace);
+        if (cost > maxTraceCost) {
+            tooCostly.increment();
+            return overflow(matcher, trace, "estimated cost " + cost + " exceeds " + maxTraceCost);
+        }
+
+        Admission admission;
+        try {
+            admission = admit(cost);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new MatchRejectedException("Interrupted while queued");
+        }
+
+        switch (admission) {
+            case QUEUE_FULL -> {
+                queueFull.increment();
+                return overflow(matcher, trace, "queue is full");
+            }
+            case TIMED_OUT -> {
+                timedOut.increment();
+                return overflow(matcher, trace, "queued longer than " + queueTimeout);
+            }
+            default -> {
+                try {
+                    return run(matcher, trace);
+                } finally {
+                    release(cost);
+                }
+            }
+        }
+    }
+
+    public long estimateCost(MapMatcher matcher, List<Point> trace) {
+        if (trace.isEmpty()) return 0;
+        if (!matcher.requiresRoadNetwork() || matcher == fallbackMatcher) return trace.size();
+
+        try (RoadNetworkManager.Lease lease = networkManager.acquire()) {
+            SegmentDensityGrid grid = lease.densityGrid();
+            int samples = Math.min(trace.size(), SAMPLE_POINTS);
+            long found = 0;
+            for (int k = 0; k < samples; k++) {
+                found += grid.count(trace.get((int) ((long) k * trace.size() / samples)));
+            }
+            double density = Math.max(1.0, (double) found / samples);
+            return (long) Math.ceil(trace.size() * density * density);
+        }
+    }
+
+    public SchedulerMetrics metrics() {
+        lock.lock();
+        try {
+            return new SchedulerMetrics(queue.size(), maxQueueDepth, running, inFlightCost, runningFallbacks,
+                    admitted.sum(), tooCostly.sum(), queueFull.sum(), timedOut.sum(),
+                    fallbacks.sum(), fallbackFull.sum(), rejected.sum());
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    public void logMetrics() {
+        SchedulerMetrics m = metrics();
+        log.info("[Scheduler] admitted {}, fallbacks {}, rejected {} (too costly {}, queue full {}, timed out {}, fallbacks busy {}); max queue depth {}.",
+                m.admitted(), m.fallbacks(), m.rejected(), m.tooCostly(), m.queueFull(), m.timedOut(), m.fallbackFull(),
+                m.maxQueueDepth());
+    }
+
+    private List<Point> run(MapMatcher matcher, List<Point> trace) {
+        if (!matcher.requiresRoadNetwork()) return matcher.match(trace);
+
+        // Pin one network version for the whole trace
+        try (RoadNetworkManager.Lease lease = networkManager.acquire()) {
+            return matcher.match(trace, lease.network());
+        }
+    }
+
+    // Not admitted: degrade to the cheap matcher within its own limit, or shed
+    private List<Point> overflow(MapMatcher matcher, List<Point> trace, String reason) {
+        if (overflowPolicy == OverflowPolicy.FALLBACK && networkManager.version() >= 0) {
+            if (startFallback()) {
+                fallbacks.increment();
+                log.warn("[Scheduler] {} trace of {} points falls back to {}: {}.",
+                        matcher.getMatcherName(), trace.size(), fallbackMatcher.getMatcherName(), reason);
+                try {
+                    return run(fallbackMatcher, trace);
+                } finally {
+                    releaseFallback();
+                }
+            }
+            fallbackFull.increment();
+            reason += ", and " + maxFallbackConcurrent + " fallbacks are already running";
+        }
+        rejected.increment();
+        throw new MatchRejectedException(matcher.getMatcherName() + " trace of " + trace.size() + " points rejected: " + reason);
+    }
+
+    private Admission admit(long cost) throws InterruptedException {
+        lock.lock();
+        try {
+            if (queue.isEmpty() && canStart(cost)) {
+                start(cost);
+                return Admission.ADMITTED;
+            }
+            if (queue.size() >= queueCapacity) return Admission.QUEUE_FULL;
+
+            Ticket ticket = new Ticket();
+            queue.addLast(ticket);
+            maxQueueDepth = Math.max(maxQueueDepth, queue.size());
+            long remaining = queueTimeout.toNanos();
+            try {
+                while (queue.peekFirst() != ticket || !canStart(cost)) {
+                    if (remaining <= 0) {
+                        queue.remove(ticket);
+                        changed.signalAll();
+                        return Admission.TIMED_OUT;
+                    }
+                    remaining = changed.awaitNanos(remaining);
+                }
+            } catch (InterruptedException e) {
+                queue.remove(ticket);
+                changed.signalAll();
+                throw e;
+            }
+
+            queue.removeFirst();
+            start(cost);
+            // The next trace in line may fit as well
+            changed.signalAll();
+            return Admission.ADMITTED;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Traces that can be running or queued at the same time; any more overflow.
+     */
+    public int capacity() {
+        return concurrencyLimit() + queueCapacity;
+    }
+
+    private int concurrencyLimit() {
+        return maxConcurrent > 0 ? maxConcurrent : Runtime.getRuntime().availableProcessors();
+    }
+
+    // Caller holds lock
+    private boolean canStart(long cost) {
+        return running < concurrencyLimit() && (running == 0 || inFlightCost + cost <= costBudget);
+    }
+
+    // Caller holds lock
+    private void start(long cost) {
+        running++;
+        inFlightCost += cost;
+        admitted.increment();
+    }
+
+    private void release(long cost) {
+        lock.lock();
+        try {
+            running--;
+            inFlightCost -= cost;
+            changed.signalAll();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    private boolean startFallback() {
+        lock.lock();
+        try {
+            if (runningFallbacks >= maxFallbackConcurrent) return false;
+            runningFallbacks++;
+            return true;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    private void releaseFallback() {
+        lock.lock();
+        try {
+            runningFallbacks--;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    private enum Admission { ADMITTED, QUEUE_FULL, TIMED_OUT }
+
+    // Identity marks a place in the queue
+    private static final class Ticket {}
+}
@@ -0,0 +1,11 @@
+package com.example.mapmatchingproject.scheduling;
+
+/**
+ * What {@link MatchScheduler} does with a trace it cannot admit.
+ */
+public enum OverflowPolicy {
+    /** Match with the Euclidean matcher instead, outside the admission limits but with a concurrency limit of its own. */
+    FALLBACK,
+    /** Throw {@link MatchRejectedException}. */
+    REJECT
+}
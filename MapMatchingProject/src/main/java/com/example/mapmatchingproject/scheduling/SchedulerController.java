@@ -0,0 +1,33 @@
+package com.example.mapmatchingproject.scheduling;
+
+import lombok.RequiredArgsConstructor;
+import org.json.JSONObject;
+import org.springframework.http.MediaType;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RestController;
+
+@RestController
+@RequiredArgsConstructor
+public class SchedulerController {
+
+    private final MatchScheduler scheduler;
+
+    @GetMapping(value = "/scheduler/metrics", produces = MediaType.APPLICATION_JSON_VALUE)
+    public String metrics() {
+        SchedulerMetrics m = scheduler.metrics();
+        return new JSONObject()
+                .put("queueDepth", m.queueDepth())
+                .put("maxQueueDepth", m.maxQueueDepth())
+                .put("running", m.running())
+                .put("inFlightCost", m.inFlightCost())
+                .put("runningFallbacks", m.runningFallbacks())
+                .put("admitted", m.admitted())
+                .put("tooCostly", m.tooCostly())
+                .put("queueFull", m.queueFull())
+                .put("timedOut", m.timedOut())
+                .put("fallbacks", m.fallbacks())
+                .put("fallbackFull", m.fallbackFull())
+                .put("rejected", m.rejected())
+                .toString();
+    }
+}
@@ -0,0 +1,12 @@
+package com.example.mapmatchingproject.scheduling;
+
+/**
+ * Point-in-time view of {@link MatchScheduler}. Counters are totals since startup:
+ * {@code tooCostly}, {@code queueFull} and {@code timedOut} count why traces were not admitted,
+ * {@code fallbacks} and {@code rejected} what happened to them; {@code fallbackFull} counts the
+ * rejections caused by every fallback slot being taken.
+ */
+public record SchedulerMetrics(int queueDepth, int maxQueueDepth, int running, long inFlightCost, int runningFallbacks,
+                               long admitted, long tooCostly, long queueFull, long timedOut,
+                               long fallbacks, long fallbackFull, long rejected) {
+}
@@ -0,0 +1,16 @@
+package com.example.mapmatchingproject.sharding;
+
+import com.example.mapmatchingproject.entities.BoundingBox;
+import com.example.mapmatchingproject.entities.Point;
+
+/**
+ * One cell of a {@link ShardGrid}. Points are owned by the shard whose {@code core} contains them;
+ * road data is loaded for the wider {@code extent}, so matching near the border still sees
+ * the roads on the other side.
+ */
+public record Shard(int id, BoundingBox core, BoundingBox extent) {
+
+    public boolean covers(Point p) {
+        return extent.contains(p.getLat(), p.getLon());
+    }
+}
@@ -0,0 +1,69 @@
+package com.example.mapmatchingproject.sharding;
+
+import com.example.mapmatchingproject.entities.Point;
+import org.json.JSONArray;
+import org.json.JSONObject;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.web.client.RestTemplateBuilder;
+import org.springframework.http.HttpEntity;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
+import org.springframework.stereotype.Component;
+import org.springframework.web.client.RestTemplate;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * HTTP calls from the coordinator to {@link ShardWorkerController}.
+ * A worker that accepts no connection or stops answering fails the call after the configured
+ * timeout, so the coordinator can retry the piece on another replica.
+ */
+@Component
+public class ShardClient {
+
+    private final RestTemplate restTemplate;
+
+    @Autowired
+    public ShardClient(RestTemplateBuilder builder,
+                       @Value("${mapmatching.shard.connect-timeout:2s}") Duration connectTimeout,
+                       @Value("${mapmatching.shard.read-timeout:60s}") Duration readTimeout) {
+        this(builder.connectTimeout(connectTimeout).readTimeout(readTimeout).build());
+    }
+
+    ShardClient(RestTemplate restTemplate) {
+        this.restTemplate = restTemplate;
+    }
+
+    public WorkerInfo info(String workerUrl) {
+        JSONObject response = new JSONObject(restTemplate.getForObject(workerUrl + "/shard/info", String.class));
+        JSONArray ids = response.getJSONArray("shards");
+        List<Integer> shards = new ArrayList<>(ids.length());
+        for (int i = 0; i < ids.length(); i++) shards.add(ids.getInt(i));
+        return new WorkerInfo(shards, response.getLong("version"));
+    }
+
+    public List<Point> match(String workerUrl, int shardId, List<Point> points) {
+        JSONObject request = new JSONObject()
+                .put("shard", shardId)
+                .put("points", ShardProtocol.toJson(points));
+
+        HttpHeaders headers = new HttpHeaders();
+        headers.setContentType(MediaType.APPLICATION_JSON);
+        String responseStr = restTemplate.postForObject(workerUrl + "/shard/match",
+                new HttpEntity<>(request.toString(), headers), String.class);
+
+        return ShardProtocol.fromJson(new JSONObject(responseStr).getJSONArray("points"));
+    }
+
+    /**
+     * {@code version} is -1 while the worker is still loading its road data.
+     */
+    public record WorkerInfo(List<Integer> shards, long version) {
+        public boolean ready() {
+            return version >= 0;
+        }
+    }
+}
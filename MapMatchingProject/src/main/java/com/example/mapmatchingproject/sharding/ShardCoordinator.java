@@ -0,0 +1,182 @@
+package com.example.mapmatchingproject.sharding;
+
+import com.example.mapmatchingproject.MapGenerator;
+import com.example.mapmatchingproject.entities.Point;
+import com.example.mapmatchingproject.entities.PointsCollection;
+import com.example.mapmatchingproject.entities.Trace;
+import com.example.mapmatchingproject.entities.TraceSet;
+import com.example.mapmatchingproject.io.MatchResultWriter;
+import com.example.mapmatchingproject.io.OutputFormat;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.CommandLineRunner;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Service;
+import org.springframework.web.client.RestClientException;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Matches the trace file on remote {@link ShardWorker}s: each trace is cut at shard borders,
+ * pieces are sent to a worker serving their shard in parallel, and the results are stitched back.
+ * Workers serving the same shard share its pieces round-robin; a piece that fails on one worker
+ * (unreachable, overloaded) is retried on the next. A trace whose piece fails everywhere is
+ * left out of the results, the other traces are still written.
+ */
+@Slf4j
+@Service
+@RequiredArgsConstructor
+@ConditionalOnProperty(name = "mapmatching.shard.role", havingValue = "coordinator")
+public class ShardCoordinator implements CommandLineRunner {
+
+    private static final String RESULT_NAME = "Sharded";
+
+    private final ShardGrid grid;
+    private final ShardClient client;
+
+    @Value("${mapmatching.shard.workers}")
+    private List<String> workerUrls;
+
+    @Value("${mapmatching.shard.trace-file:src/main/resources/gps_points.csv}")
+    private Path traceFile;
+
+    @Value("${mapmatching.shard.context-points:10}")
+    private int contextPoints;
+
+    @Value("${mapmatching.shard.startup-timeout:60s}")
+    private Duration startupTimeout;
+
+    @Value("${mapmatching.output.dir:src/main/out}")
+    private Path outputDir;
+
+    @Value("${mapmatching.output.formats:GEOJSON}")
+    private List<OutputFormat> outputFormats;
+
+    @Value("${mapmatching.output.html:true}")
+    private boolean htmlViewer;
+
+    private final AtomicInteger nextWorker = new AtomicInteger();
+
+    @Override
+    public void run(String... args) throws Exception {
+        log.info("=== Sharded matching: {} shards, {} workers ===", grid.size(), workerUrls.size());
+        Map<Integer, List<String>> routes = discoverWorkers();
+
+        TraceSet traceSet = new PointsCollection(traceFile).getTraceSet();
+        long startTime = System.currentTimeMillis();
+
+        // null for traces that could not be matched
+        List<List<Point>> matched = new ArrayList<>();
+        try (ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor()) {
+            List<CompletableFuture<List<Point>>> runs = new ArrayList<>();
+            for (Trace trace : traceSet.traces()) {
+                runs.add(CompletableFuture.supplyAsync(() -> matchTrace(trace.toPoints(), routes, executor), executor)
+                        .exceptionally(e -> {
+                            log.error("[Shard] Trace {} failed: {}", trace.id(), e.getMessage());
+                            return null;
+                        }));
+            }
+            for (CompletableFuture<List<Point>> run : runs) matched.add(run.join());
+        }
+        long failed = matched.stream().filter(Objects::isNull).count();
+        log.info("Execution time {}: {} ms for {} traces ({} failed)", RESULT_NAME, System.currentTimeMillis() - startTime,
+                traceSet.traces().size(), failed);
+
+        writeResults(traceSet, matched);
+        log.info("=== Sharded matching finished ===");
+    }
+
+    private List<Point> matchTrace(List<Point> points, Map<Integer, List<String>> routes, ExecutorService executor) {
+        List<TracePiece> pieces = TracePartitioner.split(points, grid, contextPoints);
+
+        List<CompletableFuture<List<Point>>> calls = new ArrayList<>();
+        for (TracePiece piece : pieces) {
+            List<Point> sent = points.subList(piece.contextFrom(), piece.contextTo());
+            calls.add(CompletableFuture.supplyAsync(() -> matchPiece(piece.shard(), sent, routes), executor));
+        }
+
+        List<List<Point>> results = new ArrayList<>();
+        for (CompletableFuture<List<Point>> call : calls) results.add(call.join());
+        return TracePartitioner.stitch(pieces, results);
+    }
+
+    // Starts at the next worker in round-robin order and moves on to the other replicas on failure
+    private List<Point> matchPiece(Shard shard, List<Point> points, Map<Integer, List<String>> routes) {
+        List<String> candidates = routes.get(shard.id());
+        if (candidates == null) throw new IllegalStateException("No worker serves shard " + shard.id() + " " + shard.core());
+
+        int first = Math.floorMod(nextWorker.getAndIncrement(), candidates.size());
+        RestClientException lastError = null;
+        for (int attempt = 0; attempt < candidates.size(); attempt++) {
+            String workerUrl = candidates.get((first + attempt) % candidates.size());
+            try {
+                return client.match(workerUrl, shard.id(), points);
+            } catch (RestClientException e) {
+                log.warn("[Shard] Worker {} failed on shard {}: {}", workerUrl, shard.id(), e.getMessage());
+                lastError = e;
+            }
+        }
+        throw new IllegalStateException("All " + candidates.size() + " workers of shard " + shard.id() + " failed", lastError);
+    }
+
+    // Waits for every worker to finish loading and maps shard id -> worker urls
+    private Map<Integer, List<String>> discoverWorkers() throws InterruptedException {
+        long deadline = System.nanoTime() + startupTimeout.toNanos();
+        Map<Integer, List<String>> routes = new HashMap<>();
+        for (String url : workerUrls) {
+            ShardClient.WorkerInfo info = awaitReady(url, deadline);
+            for (int id : info.shards()) routes.computeIfAbsent(id, _ -> new ArrayList<>()).add(url);
+            log.info("[Shard] Worker {} serves shards {} (network version {}).", url, info.shards(), info.version());
+        }
+
+        for (Shard shard : grid.shards()) {
+            if (!routes.containsKey(shard.id())) log.warn("[Shard] No worker serves shard {}.", shard.id());
+        }
+        return routes;
+    }
+
+    private ShardClient.WorkerInfo awaitReady(String url, long deadline) throws InterruptedException {
+        while (true) {
+            try {
+                ShardClient.WorkerInfo info = client.info(url);
+                if (info.ready()) return info;
+            } catch (RestClientException e) {
+                log.debug("[Shard] Worker {} not reachable yet: {}", url, e.getMessage());
+            }
+            if (System.nanoTime() > deadline) throw new IllegalStateException("Worker " + url + " did not become ready");
+            Thread.sleep(500);
+        }
+    }
+
+    private void writeResults(TraceSet traceSet, List<List<Point>> matched) throws IOException {
+        Files.createDirectories(outputDir);
+        for (OutputFormat format : outputFormats) {
+            Path file = outputDir.resolve(format.fileName(RESULT_NAME));
+            try (MatchResultWriter writer = format.open(file)) {
+                for (int i = 0; i < matched.size(); i++) {
+                    if (matched.get(i) == null) continue;
+                    Trace trace = traceSet.traces().get(i);
+                    writer.write(trace.id(), trace.toPoints(), matched.get(i));
+                }
+            }
+            log.info("Results saved: {}", file);
+        }
+
+        if (htmlViewer && outputFormats.contains(OutputFormat.GEOJSON)) {
+            MapGenerator.generateViewer(outputDir.resolve(RESULT_NAME + ".html"), OutputFormat.GEOJSON.fileName(RESULT_NAME));
+        }
+    }
+}
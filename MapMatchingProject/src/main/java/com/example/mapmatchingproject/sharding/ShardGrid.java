@@ -0,0 +1,56 @@
+package com.example.mapmatchingproject.sharding;
+
+import com.example.mapmatchingproject.entities.BoundingBox;
+import com.example.mapmatchingproject.entities.Point;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Splits {@code bounds} into {@code rows x cols} equal shards, numbered row by row from the south-west.
+ * Each shard's extent is its core widened by {@code overlap} degrees.
+ */
+public record ShardGrid(BoundingBox bounds, int rows, int cols, double overlap) {
+
+    public ShardGrid {
+        if (bounds.isEmpty()) throw new IllegalArgumentException("Shard bounds are empty: " + bounds);
+        if (rows < 1 || cols < 1) throw new IllegalArgumentException("Shard grid needs at least one row and column");
+        if (overlap < 0) throw new IllegalArgumentException("Shard overlap must not be negative");
+    }
+
+    public int size() {
+        return rows * cols;
+    }
+
+    public Shard shard(int id) {
+        if (id < 0 || id >= size()) throw new IllegalArgumentException("No shard " + id + " in a " + rows + "x" + cols + " grid");
+        int row = id / cols;
+        int col = id % cols;
+        double height = (bounds.north() - bounds.south()) / rows;
+        double width = (bounds.east() - bounds.west()) / cols;
+        BoundingBox core = new BoundingBox(
+                bounds.south() + row * height, bounds.west() + col * width,
+                bounds.south() + (row + 1) * height, bounds.west() + (col + 1) * width);
+        return new Shard(id, core, core.expand(overlap));
+    }
+
+    public List<Shard> shards() {
+        List<Shard> shards = new ArrayList<>(size());
+        for (int id = 0; id < size(); id++) shards.add(shard(id));
+        return shards;
+    }
+
+    /**
+     * Shard whose core contains {@code p}. Points outside the bounds go to the nearest edge shard.
+     */
+    public Shard shardOf(Point p) {
+        int row = cell(p.getLat(), bounds.south(), bounds.north(), rows);
+        int col = cell(p.getLon(), bounds.west(), bounds.east(), cols);
+        return shard(row * cols + col);
+    }
+
+    private static int cell(double value, double min, double max, int count) {
+        int cell = (int) Math.floor((value - min) / (max - min) * count);
+        return Math.clamp(cell, 0, count - 1);
+    }
+}
@@ -0,0 +1,32 @@
+package com.example.mapmatchingproject.sharding;
+
+import com.example.mapmatchingproject.entities.Point;
+import org.json.JSONArray;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * JSON shape of points exchanged between coordinator and workers: {@code [[lat, lon], ...]}.
+ */
+final class ShardProtocol {
+
+    private ShardProtocol() {}
+
+    static JSONArray toJson(List<Point> points) {
+        JSONArray array = new JSONArray();
+        for (Point p : points) {
+            array.put(new JSONArray().put(p.getLat()).put(p.getLon()));
+        }
+        return array;
+    }
+
+    static List<Point> fromJson(JSONArray array) {
+        List<Point> points = new ArrayList<>(array.length());
+        for (int i = 0; i < array.length(); i++) {
+            JSONArray coord = array.getJSONArray(i);
+            points.add(new Point(coord.getDouble(0), coord.getDouble(1)));
+        }
+        return points;
+    }
+}
@@ -0,0 +1,96 @@
+package com.example.mapmatchingproject.sharding;
+
+import com.example.mapmatchingproject.clients.OverpassClient;
+import com.example.mapmatchingproject.entities.BoundingBox;
+import com.example.mapmatchingproject.entities.Point;
+import com.example.mapmatchingproject.entities.RoadSegment;
+import com.example.mapmatchingproject.graph.RoadNetwork;
+import com.example.mapmatchingproject.graph.RoadNetworkManager;
+import com.example.mapmatchingproject.matchers.MapMatcher;
+import com.example.mapmatchingproject.scheduling.MatchScheduler;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.json.JSONArray;
+import org.json.JSONObject;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.CommandLineRunner;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * Loads the road data of {@code mapmatching.shard.ids} only and matches trace pieces against it.
+ */
+@Slf4j
+@Component
+@RequiredArgsConstructor
+@ConditionalOnProperty(name = "mapmatching.shard.role", havingValue = "worker")
+public class ShardWorker implements CommandLineRunner {
+
+    private final ShardGrid grid;
+    private final OverpassClient overpassClient;
+    private final RoadNetworkManager networkManager;
+    private final List<MapMatcher> matchers;
+    private final MatchScheduler matchScheduler;
+
+    @Value("${mapmatching.shard.ids}")
+    private List<Integer> shardIds;
+
+    @Value("${mapmatching.shard.matcher:HMM}")
+    private String matcherName;
+
+    @Value("${mapmatching.hmm.off-heap:false}")
+    private boolean offHeap;
+
+    private MapMatcher matcher;
+
+    @Override
+    public void run(String... args) {
+        matcher = matchers.stream()
+                .filter(m -> m.getMatcherName().equals(matcherName) && m.requiresRoadNetwork())
+                .findFirst()
+                .orElseThrow(() -> new IllegalStateException("No local matcher named " + matcherName));
+
+        long start = System.currentTimeMillis();
+        JSONArray ways = new JSONArray();
+        Set<Long> seen = new HashSet<>();
+        for (int id : shardIds) {
+            BoundingBox box = grid.shard(id).extent();
+            JSONArray elements = overpassClient.getJSONFromOverpass(box.south(), box.west(), box.north(), box.east());
+            // Neighbouring shards overlap, keep each way once
+            for (int i = 0; i < elements.length(); i++) {
+                JSONObject way = elements.getJSONObject(i);
+                long wayId = way.optLong("id", -1);
+                if (wayId < 0 || seen.add(wayId)) ways.put(way);
+            }
+        }
+
+        List<RoadSegment> segments = RoadSegment.buildSegmentsFromGeometry(ways);
+        networkManager.publish(RoadNetwork.build(segments, offHeap));
+        log.info("[Shard] Worker loaded shards {} ({} ways, {} segments) in {} ms, matching with {}.",
+                shardIds, ways.length(), segments.size(), System.currentTimeMillis() - start, matcherName);
+    }
+
+    public List<Integer> shardIds() {
+        return shardIds;
+    }
+
+    public boolean serves(int shardId) {
+        return shardIds.contains(shardId);
+    }
+
+    public long version() {
+        return networkManager.version();
+    }
+
+    public boolean isReady() {
+        return matcher != null && version() >= 0;
+    }
+
+    public List<Point> match(List<Point> points) {
+        return matchScheduler.match(matcher, points);
+    }
+}
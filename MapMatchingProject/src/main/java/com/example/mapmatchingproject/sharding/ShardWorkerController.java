@@ -0,0 +1,55 @@
+package com.example.mapmatchingproject.sharding;
+
+import com.example.mapmatchingproject.entities.Point;
+import com.example.mapmatchingproject.scheduling.MatchRejectedException;
+import lombok.RequiredArgsConstructor;
+import org.json.JSONArray;
+import org.json.JSONObject;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.RequestBody;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.server.ResponseStatusException;
+
+import java.util.List;
+
+@RestController
+@RequiredArgsConstructor
+@RequestMapping("/shard")
+@ConditionalOnProperty(name = "mapmatching.shard.role", havingValue = "worker")
+public class ShardWorkerController {
+
+    private final ShardWorker worker;
+
+    @GetMapping(value = "/info", produces = MediaType.APPLICATION_JSON_VALUE)
+    public String info() {
+        return new JSONObject()
+                .put("shards", new JSONArray(worker.shardIds()))
+                .put("version", worker.isReady() ? worker.version() : -1)
+                .toString();
+    }
+
+    @PostMapping(value = "/match", consumes = MediaType.APPLICATION_JSON_VALUE, produces = MediaType.APPLICATION_JSON_VALUE)
+    public String match(@RequestBody String body) {
+        JSONObject request = new JSONObject(body);
+        int shardId = request.getInt("shard");
+        if (!worker.serves(shardId)) {
+            throw new ResponseStatusException(HttpStatus.NOT_FOUND, "Shard " + shardId + " is not loaded on this worker");
+        }
+        if (!worker.isReady()) {
+            throw new ResponseStatusException(HttpStatus.SERVICE_UNAVAILABLE, "Road data is still loading");
+        }
+
+        List<Point> matched;
+        try {
+            matched = worker.match(ShardProtocol.fromJson(request.getJSONArray("points")));
+        } catch (MatchRejectedException e) {
+            throw new ResponseStatusException(HttpStatus.TOO_MANY_REQUESTS, e.getMessage());
+        }
+        return new JSONObject().put("points", ShardProtocol.toJson(matched)).toString();
+    }
+}
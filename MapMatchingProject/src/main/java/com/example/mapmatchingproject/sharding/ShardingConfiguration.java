@@ -0,0 +1,26 @@
+package com.example.mapmatchingproject.sharding;
+
+import com.example.mapmatchingproject.entities.BoundingBox;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnExpression;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+/**
+ * Shared shard layout; coordinator and workers must be started with the same grid settings.
+ */
+@Configuration
+@ConditionalOnExpression("'${mapmatching.shard.role:standalone}' != 'standalone'")
+public class ShardingConfiguration {
+
+    @Bean
+    public ShardGrid shardGrid(@Value("${mapmatching.shard.bounds}") double[] bounds,
+                               @Value("${mapmatching.shard.rows:2}") int rows,
+                               @Value("${mapmatching.shard.cols:2}") int cols,
+                               @Value("${mapmatching.shard.overlap:0.01}") double overlap) {
+        if (bounds.length != 4) {
+            throw new IllegalArgumentException("mapmatching.shard.bounds must be south,west,north,east");
+        }
+        return new ShardGrid(new BoundingBox(bounds[0], bounds[1], bounds[2], bounds[3]), rows, cols, overlap);
+    }
+}
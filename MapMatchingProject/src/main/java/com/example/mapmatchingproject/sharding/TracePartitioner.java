@@ -0,0 +1,65 @@
+package com.example.mapmatchingproject.sharding;
+
+import com.example.mapmatchingproject.entities.Point;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Cuts traces at shard borders and puts the matched pieces back together.
+ */
+public final class TracePartitioner {
+
+    private TracePartitioner() {}
+
+    /**
+     * A piece keeps going while the trace stays inside its shard's extent, so a trace running
+     * along a border does not flip between shards on every point. Points outside the grid stay
+     * with the edge shard they are assigned to instead of becoming pieces of their own.
+     */
+    public static List<TracePiece> split(List<Point> trace, ShardGrid grid, int contextPoints) {
+        List<TracePiece> pieces = new ArrayList<>();
+        int start = 0;
+        while (start < trace.size()) {
+            Shard shard = grid.shardOf(trace.get(start));
+            int end = start + 1;
+            while (end < trace.size() && belongs(trace.get(end), shard, grid)) end++;
+
+            int contextFrom = start;
+            while (contextFrom > 0 && start - contextFrom < contextPoints && belongs(trace.get(contextFrom - 1), shard, grid)) {
+                contextFrom--;
+            }
+            int contextTo = end;
+            while (contextTo < trace.size() && contextTo - end < contextPoints && belongs(trace.get(contextTo), shard, grid)) {
+                contextTo++;
+            }
+
+            pieces.add(new TracePiece(shard, start, end, contextFrom, contextTo));
+            start = end;
+        }
+        return pieces;
+    }
+
+    private static boolean belongs(Point p, Shard shard, ShardGrid grid) {
+        return shard.covers(p) || grid.shardOf(p).id() == shard.id();
+    }
+
+    /**
+     * Joins per-piece results, dropping the context points of each piece.
+     * Every result must hold one matched point per point sent.
+     */
+    public static List<Point> stitch(List<TracePiece> pieces, List<List<Point>> results) {
+        List<Point> matched = new ArrayList<>();
+        for (int i = 0; i < pieces.size(); i++) {
+            TracePiece piece = pieces.get(i);
+            List<Point> result = results.get(i);
+            if (result.size() != piece.contextTo() - piece.contextFrom()) {
+                throw new IllegalStateException("Shard " + piece.shard().id() + " returned " + result.size()
+                        + " points for " + (piece.contextTo() - piece.contextFrom()));
+            }
+            int offset = piece.from() - piece.contextFrom();
+            matched.addAll(result.subList(offset, offset + piece.size()));
+        }
+        return matched;
+    }
+}
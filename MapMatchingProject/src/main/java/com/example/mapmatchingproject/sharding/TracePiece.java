@@ -0,0 +1,13 @@
+package com.example.mapmatchingproject.sharding;
+
+/**
+ * Points {@code [from, to)} of a trace owned by {@code shard}. The worker is sent
+ * {@code [contextFrom, contextTo)}, which adds neighbouring points so the match
+ * does not restart at the border.
+ */
+public record TracePiece(Shard shard, int from, int to, int contextFrom, int contextTo) {
+
+    public int size() {
+        return to - from;
+    }
+}
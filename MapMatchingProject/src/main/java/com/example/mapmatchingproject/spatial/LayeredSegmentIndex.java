@@ -0,0 +1,133 @@
+package com.example.mapmatchingproject.spatial;
+
+import com.example.mapmatchingproject.entities.Point;
+import com.example.mapmatchingproject.entities.RoadSegment;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import java.util.function.Consumer;
+
+/**
+ * Immutable base store plus one small store per applied delta, oldest first.
+ * A segment is skipped when a layer above its own holds its way, so an update only
+ * builds a store for the changed ways and never touches the base arrays or earlier layers.
+ */
+public record LayeredSegmentIndex(SegmentStore base, List<Layer> layers) {
+
+    // ~1 m; first search radius around a hidden winner that lies on the query point
+    private static final double MIN_RADIUS_SQ = 1e-5 * 1e-5;
+
+    /**
+     * Segments of one delta and every way it changed, including removed ones.
+     */
+    public record Layer(SegmentStore store, Set<Long> ways) {}
+
+    public static LayeredSegmentIndex of(SegmentStore base) {
+        return new LayeredSegmentIndex(base, List.of());
+    }
+
+    public LayeredSegmentIndex withLayer(List<RoadSegment> segments, Set<Long> ways) {
+        List<Layer> next = new ArrayList<>(layers.size() + 1);
+        next.addAll(layers);
+        next.add(new Layer(SegmentStore.from(segments), Set.copyOf(ways)));
+        return new LayeredSegmentIndex(base, List.copyOf(next));
+    }
+
+    public LayeredSegmentIndex withoutLayers() {
+        return layers.isEmpty() ? this : of(base);
+    }
+
+    /**
+     * Stored segments, including hidden ones.
+     */
+    public int size() {
+        int size = base.size();
+        for (Layer layer : layers) size += layer.store().size();
+        return size;
+    }
+
+    /**
+     * @return closest visible segment, or null if there is none
+     */
+    public RoadSegment nearest(SegmentProjector projector, Point p) {
+        double px = p.getLon(), py = p.getLat();
+        RoadSegment best = null;
+        double bestDist = Double.MAX_VALUE;
+
+        // Level -1 is the base; on equal distance the lower level wins
+        for (int level = -1; level < layers.size(); level++) {
+            SegmentStore store = store(level);
+            int i = projector.nearest(store, px, py);
+            if (i < 0) continue;
+            double d = ScalarSegmentProjector.distanceSq(store, i, px, py);
+            if (d >= bestDist) continue;
+
+            if (replacedAbove(level, store.segment(i).wayId())) {
+                // The winner was replaced; its visible neighbours are no closer
+                i = nearestVisible(projector, store, level, px, py, d, bestDist);
+                if (i < 0) continue;
+                d = ScalarSegmentProjector.distanceSq(store, i, px, py);
+            }
+            best = store.segment(i);
+            bestDist = d;
+        }
+        return best;
+    }
+
+    public void forEachWithin(SegmentProjector projector, Point p, double maxDistSq, Consumer<RoadSegment> action) {
+        double px = p.getLon(), py = p.getLat();
+        for (int level = -1; level < layers.size(); level++) {
+            SegmentStore store = store(level);
+            int from = level;
+            projector.forEachWithin(store, px, py, maxDistSq, i -> {
+                RoadSegment seg = store.segment(i);
+                if (!replacedAbove(from, seg.wayId())) action.accept(seg);
+            });
+        }
+    }
+
+    private SegmentStore store(int level) {
+        return level < 0 ? base : layers.get(level).store();
+    }
+
+    private boolean replacedAbove(int level, long wayId) {
+        for (int above = layers.size() - 1; above > level; above--) {
+            if (layers.get(above).ways().contains(wayId)) return true;
+        }
+        return false;
+    }
+
+    /**
+     * Closest segment of {@code store} that is not replaced, searched in circles that double in radius
+     * from the hidden winner at {@code hiddenDistSq} until one holds a visible segment. Only segments
+     * inside the circle are checked against the layers. Gives up past {@code limitSq}.
+     *
+     * @return index in {@code store}, or -1 if no visible segment is closer than {@code limitSq}
+     */
+    private int nearestVisible(SegmentProjector projector, SegmentStore store, int level,
+                               double px, double py, double hiddenDistSq, double limitSq) {
+        double radiusSq = Math.max(hiddenDistSq, MIN_RADIUS_SQ) * 4;
+        int[] best = new int[1];
+        int[] seen = new int[1];
+        double[] bestDist = new double[1];
+        while (true) {
+            best[0] = -1;
+            seen[0] = 0;
+            bestDist[0] = Double.MAX_VALUE;
+            projector.forEachWithin(store, px, py, radiusSq, i -> {
+                seen[0]++;
+                if (replacedAbove(level, store.segment(i).wayId())) return;
+                double d = ScalarSegmentProjector.distanceSq(store, i, px, py);
+                if (d < bestDist[0]) {
+                    bestDist[0] = d;
+                    best[0] = i;
+                }
+            });
+            // Anything outside the circle is farther than everything inside it
+            if (best[0] >= 0) return bestDist[0] < limitSq ? best[0] : -1;
+            if (seen[0] == store.size() || radiusSq >= limitSq) return -1;
+            radiusSq *= 4;
+        }
+    }
+}
@@ -0,0 +1,51 @@
+package com.example.mapmatchingproject.spatial;
+
+import java.util.function.IntConsumer;
+
+/**
+ * Plain loop over the arrays, used when the Vector API is not available.
+ */
+public class ScalarSegmentProjector implements SegmentProjector {
+
+    @Override
+    public int nearest(SegmentStore store, double px, double py) {
+        int best = -1;
+        double minDistSq = Double.MAX_VALUE;
+        for (int i = 0; i < store.size(); i++) {
+            double d = distanceSq(store, i, px, py);
+            if (d < minDistSq) {
+                minDistSq = d;
+                best = i;
+            }
+        }
+        return best;
+    }
+
+    @Override
+    public void forEachWithin(SegmentStore store, double px, double py, double maxDistSq, IntConsumer action) {
+        for (int i = 0; i < store.size(); i++) {
+            if (distanceSq(store, i, px, py) <= maxDistSq) {
+                action.accept(i);
+            }
+        }
+    }
+
+    @Override
+    public String getName() {
+        return "scalar";
+    }
+
+    static double distanceSq(SegmentStore store, int i, double px, double py) {
+        double ax = store.ax()[i], ay = store.ay()[i];
+        double dx = store.bx()[i] - ax;
+        double dy = store.by()[i] - ay;
+
+        double lengthSquared = dx * dx + dy * dy;
+        double t = lengthSquared == 0 ? 0 : ((px - ax) * dx + (py - ay) * dy) / lengthSquared;
+        t = Math.max(0, Math.min(1, t));
+
+        double ex = px - (ax + t * dx);
+        double ey = py - (ay + t * dy);
+        return ex * ex + ey * ey;
+    }
+}
@@ -0,0 +1,63 @@
+package com.example.mapmatchingproject.spatial;
+
+import com.example.mapmatchingproject.entities.Point;
+import com.example.mapmatchingproject.entities.RoadSegment;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.function.IntFunction;
+
+/**
+ * Segment counts on a square grid whose cells have the area of a search circle (side r * sqrt(pi)),
+ * so the count in a point's cell approximates the number of candidates within r of it.
+ * A segment counts in every cell its bounding box overlaps. Only occupied cells are stored.
+ */
+public final class SegmentDensityGrid {
+
+    private final double cellDegrees;
+    private final Map<Long, Integer> counts;
+
+    private SegmentDensityGrid(double cellDegrees, Map<Long, Integer> counts) {
+        this.cellDegrees = cellDegrees;
+        this.counts = counts;
+    }
+
+    public static SegmentDensityGrid of(double radiusDegrees, int segmentCount, IntFunction<RoadSegment> segments) {
+        if (!(radiusDegrees > 0)) throw new IllegalArgumentException("Radius must be positive: " + radiusDegrees);
+        double cellDegrees = radiusDegrees * Math.sqrt(Math.PI);
+
+        Map<Long, Integer> counts = new HashMap<>();
+        for (int i = 0; i < segmentCount; i++) {
+            RoadSegment seg = segments.apply(i);
+            int minRow = cell(Math.min(seg.a().getLat(), seg.b().getLat()), cellDegrees);
+            int maxRow = cell(Math.max(seg.a().getLat(), seg.b().getLat()), cellDegrees);
+            int minCol = cell(Math.min(seg.a().getLon(), seg.b().getLon()), cellDegrees);
+            int maxCol = cell(Math.max(seg.a().getLon(), seg.b().getLon()), cellDegrees);
+            for (int row = minRow; row <= maxRow; row++) {
+                for (int col = minCol; col <= maxCol; col++) {
+                    counts.merge(key(row, col), 1, Integer::sum);
+                }
+            }
+        }
+        return new SegmentDensityGrid(cellDegrees, counts);
+    }
+
+    /**
+     * Number of segments in the cell containing {@code p}.
+     */
+    public int count(Point p) {
+        return counts.getOrDefault(key(cell(p.getLat(), cellDegrees), cell(p.getLon(), cellDegrees)), 0);
+    }
+
+    public int occupiedCells() {
+        return counts.size();
+    }
+
+    private static int cell(double degrees, double cellDegrees) {
+        return (int) Math.floor(degrees / cellDegrees);
+    }
+
+    private static long key(int row, int col) {
+        return ((long) row << 32) | (col & 0xffffffffL);
+    }
+}
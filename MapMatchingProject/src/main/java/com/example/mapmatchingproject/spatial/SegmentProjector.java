@@ -0,0 +1,36 @@
+package com.example.mapmatchingproject.spatial;
+
+import java.util.function.IntConsumer;
+
+/**
+ * Projects one point onto every segment of a {@link SegmentStore}.
+ * Distances are squared and in degrees, same as {@code Point.distanceTo}.
+ */
+public interface SegmentProjector {
+
+    /**
+     * @return index of the closest segment, or -1 if the store is empty
+     */
+    int nearest(SegmentStore store, double px, double py);
+
+    /**
+     * Calls {@code action} with the index of every segment whose projection lies within {@code maxDistSq}.
+     */
+    void forEachWithin(SegmentStore store, double px, double py, double maxDistSq, IntConsumer action);
+
+    String getName();
+
+    /**
+     * Vector kernel when {@code jdk.incubator.vector} is in the boot layer, scalar loop otherwise.
+     */
+    static SegmentProjector create() {
+        if (ModuleLayer.boot().findModule("jdk.incubator.vector").isPresent()) {
+            try {
+                return new VectorSegmentProjector();
+            } catch (LinkageError | RuntimeException e) {
+                return new ScalarSegmentProjector();
+            }
+        }
+        return new ScalarSegmentProjector();
+    }
+}
@@ -0,0 +1,42 @@
+package com.example.mapmatchingproject.spatial;
+
+import com.example.mapmatchingproject.entities.Point;
+import com.example.mapmatchingproject.entities.RoadSegment;
+
+import java.util.List;
+
+/**
+ * Structure-of-arrays copy of a segment list.
+ * Coordinates follow {@link RoadSegment#project(Point)}: x = lon, y = lat.
+ */
+public record SegmentStore(List<RoadSegment> segments, double[] ax, double[] ay, double[] bx, double[] by) {
+
+    public static SegmentStore from(List<RoadSegment> segments) {
+        int n = segments.size();
+        double[] ax = new double[n];
+        double[] ay = new double[n];
+        double[] bx = new double[n];
+        double[] by = new double[n];
+
+        for (int i = 0; i < n; i++) {
+            RoadSegment seg = segments.get(i);
+            ax[i] = seg.a().getLon();
+            ay[i] = seg.a().getLat();
+            bx[i] = seg.b().getLon();
+            by[i] = seg.b().getLat();
+        }
+        return new SegmentStore(List.copyOf(segments), ax, ay, bx, by);
+    }
+
+    public int size() {
+        return ax.length;
+    }
+
+    public RoadSegment segment(int index) {
+        return segments.get(index);
+    }
+
+    public Point project(int index, Point p) {
+        return segments.get(index).project(p);
+    }
+}
@@ -0,0 +1,103 @@
+package com.example.mapmatchingproject.spatial;
+
+import jdk.incubator.vector.DoubleVector;
+import jdk.incubator.vector.VectorMask;
+import jdk.incubator.vector.VectorOperators;
+import jdk.incubator.vector.VectorSpecies;
+
+import java.util.function.IntConsumer;
+
+/**
+ * Projects a point onto {@code SPECIES.length()} segments per iteration using the Vector API.
+ * The tail that does not fill a whole vector goes through the scalar formula.
+ */
+public class VectorSegmentProjector implements SegmentProjector {
+
+    private static final VectorSpecies<Double> SPECIES = DoubleVector.SPECIES_PREFERRED;
+    private static final DoubleVector LANE_OFFSETS = DoubleVector.zero(SPECIES).addIndex(1);
+
+    @Override
+    public int nearest(SegmentStore store, double px, double py) {
+        int n = store.size();
+        int upper = SPECIES.loopBound(n);
+
+        DoubleVector minDistSq = DoubleVector.broadcast(SPECIES, Double.MAX_VALUE);
+        DoubleVector minIdx = DoubleVector.broadcast(SPECIES, -1);
+
+        int i = 0;
+        for (; i < upper; i += SPECIES.length()) {
+            DoubleVector d = distanceSq(store, i, px, py);
+            VectorMask<Double> closer = d.compare(VectorOperators.LT, minDistSq);
+            minDistSq = minDistSq.blend(d, closer);
+            minIdx = minIdx.blend(LANE_OFFSETS.add(i), closer);
+        }
+
+        // Reduce lanes; ties go to the lower index like the scalar loop
+        int best = -1;
+        double bestDistSq = Double.MAX_VALUE;
+        for (int lane = 0; lane < SPECIES.length(); lane++) {
+            double d = minDistSq.lane(lane);
+            int idx = (int) minIdx.lane(lane);
+            if (idx >= 0 && (d < bestDistSq || (d == bestDistSq && idx < best))) {
+                bestDistSq = d;
+                best = idx;
+            }
+        }
+
+        for (; i < n; i++) {
+            double d = ScalarSegmentProjector.distanceSq(store, i, px, py);
+            if (d < bestDistSq) {
+                bestDistSq = d;
+                best = i;
+            }
+        }
+        return best;
+    }
+
+    @Override
+    public void forEachWithin(SegmentStore store, double px, double py, double maxDistSq, IntConsumer action) {
+        int n = store.size();
+        int upper = SPECIES.loopBound(n);
+
+        int i = 0;
+        for (; i < upper; i += SPECIES.length()) {
+            VectorMask<Double> hit = distanceSq(store, i, px, py).compare(VectorOperators.LE, maxDistSq);
+            if (!hit.anyTrue()) continue;
+            for (int lane = 0; lane < SPECIES.length(); lane++) {
+                if (hit.laneIsSet(lane)) action.accept(i + lane);
+            }
+        }
+
+        for (; i < n; i++) {
+            if (ScalarSegmentProjector.distanceSq(store, i, px, py) <= maxDistSq) {
+                action.accept(i);
+            }
+        }
+    }
+
+    @Override
+    public String getName() {
+        return "vector x" + SPECIES.length();
+    }
+
+    private static DoubleVector distanceSq(SegmentStore store, int i, double px, double py) {
+        DoubleVector ax = DoubleVector.fromArray(SPECIES, store.ax(), i);
+        DoubleVector ay = DoubleVector.fromArray(SPECIES, store.ay(), i);
+        DoubleVector dx = DoubleVector.fromArray(SPECIES, store.bx(), i).sub(ax);
+        DoubleVector dy = DoubleVector.fromArray(SPECIES, store.by(), i).sub(ay);
+
+        DoubleVector relX = ax.neg().add(px);
+        DoubleVector relY = ay.neg().add(py);
+
+        DoubleVector lengthSquared = dx.mul(dx).add(dy.mul(dy));
+        DoubleVector t = relX.mul(dx).add(relY.mul(dy)).div(lengthSquared);
+        // Degenerate segments project onto their start point
+        t = t.blend(0.0, lengthSquared.compare(VectorOperators.EQ, 0.0));
+        t = t.max(0.0).min(1.0);
+
+        // Same operation order as the scalar formula, so both kernels give identical results
+        DoubleVector ex = ax.add(t.mul(dx)).neg().add(px);
+        DoubleVector ey = ay.add(t.mul(dy)).neg().add(py);
+        return ex.mul(ex).add(ey.mul(ey));
+    }
+}
@@ -0,0 +1,233 @@
+package com.example.mapmatchingproject.graph;
+
+import com.example.mapmatchingproject.entities.Point;
+import com.example.mapmatchingproject.entities.RoadSegment;
+import com.example.mapmatchingproject.spatial.SegmentDensityGrid;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+import java.util.concurrent.AbstractExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.UnaryOperator;
+
+import static com.example.mapmatchingproject.graph.RoadNetworkTest.grid;
+import static org.junit.jupiter.api.Assertions.*;
+
+class RoadNetworkManagerTest {
+
+    private RoadNetworkManager manager;
+
+    @AfterEach
+    void shutdown() {
+        if (manager != null) manager.shutdown();
+    }
+
+    @Test
+    void acquireBeforePublishFails() {
+        manager = new RoadNetworkManager(0.1, 8, 50, new DirectExecutor(), RoadNetwork::compact);
+
+        assertThrows(IllegalStateException.class, manager::acquire);
+        assertThrows(IllegalStateException.class, () -> manager.apply(RoadDelta.remove(List.of(1L))));
+    }
+
+    @Test
+    void leaseKeepsItsVersionAfterApply() {
+        manager = new RoadNetworkManager(10, 8, 50, new DirectExecutor(), RoadNetwork::compact);
+        manager.publish(RoadNetwork.build(grid(5), false));
+
+        try (RoadNetworkManager.Lease lease = manager.acquire()) {
+            long version = lease.network().version();
+            manager.apply(RoadDelta.remove(List.of(1L)));
+
+            assertEquals(version + 1, manager.version());
+            assertEquals(version, lease.network().version());
+            assertTrue(hasWay(lease.network(), 1));
+        }
+
+        try (RoadNetworkManager.Lease lease = manager.acquire()) {
+            assertEquals(manager.version(), lease.network().version());
+            assertFalse(hasWay(lease.network(), 1));
+        }
+    }
+
+    @Test
+    void deltasAppliedDuringCompactionAreKept() {
+        AtomicBoolean appliedDuringCompaction = new AtomicBoolean();
+        AtomicInteger compactions = new AtomicInteger();
+        UnaryOperator<RoadNetwork> compaction = source -> {
+            compactions.incrementAndGet();
+            // A writer slips in after the compactor took its source snapshot
+            if (appliedDuringCompaction.compareAndSet(false, true)) {
+                manager.apply(RoadDelta.remove(List.of(2L)));
+            }
+            return source.compact();
+        };
+        manager = new RoadNetworkManager(0, 8, 50, new DirectExecutor(), compaction);
+        manager.publish(RoadNetwork.build(grid(5), false));
+
+        manager.apply(RoadDelta.remove(List.of(1L)));
+
+        assertTrue(appliedDuringCompaction.get());
+        try (RoadNetworkManager.Lease lease = manager.acquire()) {
+            RoadNetwork network = lease.network();
+            assertFalse(hasWay(network, 1));
+            assertFalse(hasWay(network, 2));
+            // The replayed delta was compacted as well
+            assertTrue(network.overlay().isEmpty());
+            assertEquals(grid(5).size() - 8, network.segments().size());
+        }
+        assertEquals(2, compactions.get());
+    }
+
+    @Test
+    void layersAreMergedWithoutCompaction() {
+        manager = new RoadNetworkManager(1000, 2, 50, new DirectExecutor(), _ -> {
+            throw new AssertionError("Overlay is far below the ratio");
+        });
+        manager.publish(RoadNetwork.build(grid(5), false));
+        long before = manager.version();
+
+        manager.apply(RoadDelta.remove(List.of(1L)));
+        manager.apply(RoadDelta.remove(List.of(2L)));
+        try (RoadNetworkManager.Lease lease = manager.acquire()) {
+            assertEquals(2, lease.network().overlay().depth());
+        }
+
+        manager.apply(RoadDelta.remove(List.of(3L)));
+
+        // Three applies and one merge
+        assertEquals(before + 4, manager.version());
+        try (RoadNetworkManager.Lease lease = manager.acquire()) {
+            RoadNetwork network = lease.network();
+            assertEquals(1, network.overlay().depth());
+            assertEquals(1, network.index().layers().size());
+            assertEquals(3, network.overlay().wayCount());
+            for (long wayId = 1; wayId <= 3; wayId++) assertFalse(hasWay(network, wayId));
+            assertEquals(grid(5).size() - 12, network.segments().size());
+        }
+    }
+
+    @Test
+    void densityGridIsBuiltAtPublishAndCompaction() {
+        manager = new RoadNetworkManager(10, 8, 50, new DirectExecutor(), RoadNetwork::compact);
+        manager.publish(RoadNetwork.build(grid(5), false));
+        SegmentDensityGrid published;
+        try (RoadNetworkManager.Lease lease = manager.acquire()) {
+            published = lease.densityGrid();
+            assertTrue(published.occupiedCells() > 0);
+        }
+
+        // Below the compaction ratio the delta keeps the grid
+        manager.apply(RoadDelta.remove(List.of(1L)));
+        try (RoadNetworkManager.Lease lease = manager.acquire()) {
+            assertSame(published, lease.densityGrid());
+        }
+
+        manager.shutdown();
+        manager = new RoadNetworkManager(0, 8, 50, new DirectExecutor(), RoadNetwork::compact);
+        manager.publish(RoadNetwork.build(grid(5), false));
+        Point onWay1 = grid(5).getFirst().a();
+        int before;
+        try (RoadNetworkManager.Lease lease = manager.acquire()) {
+            before = lease.densityGrid().count(onWay1);
+        }
+        manager.apply(RoadDelta.remove(List.of(1L)));
+        try (RoadNetworkManager.Lease lease = manager.acquire()) {
+            assertTrue(lease.densityGrid().count(onWay1) < before);
+        }
+    }
+
+    @Test
+    void versionsOnlyGrowAcrossCompaction() {
+        manager = new RoadNetworkManager(0, 8, 50, new DirectExecutor(), RoadNetwork::compact);
+        manager.publish(RoadNetwork.build(grid(5), false));
+        long before = manager.version();
+
+        manager.apply(RoadDelta.remove(List.of(1L)));
+
+        // apply publishes one version, the compacted network the next
+        assertEquals(before + 2, manager.version());
+    }
+
+    @Test
+    void offHeapMemoryIsFreedAfterTheLastLease() {
+        manager = new RoadNetworkManager(0.1, 8, 50, new DirectExecutor(), RoadNetwork::compact);
+        manager.publish(RoadNetwork.build(grid(5), true));
+
+        RoadNetworkManager.Lease first = manager.acquire();
+        RoadNetworkManager.Lease second = manager.acquire();
+        OffHeapRoadGraph graph = first.network().offHeapGraph();
+
+        manager.publish(RoadNetwork.build(grid(5), true));
+        assertDoesNotThrow(() -> graph.lat(0));
+
+        first.close();
+        first.close(); // closing twice releases once
+        assertDoesNotThrow(() -> graph.lat(0));
+
+        second.close();
+        assertThrows(IllegalStateException.class, () -> graph.lat(0));
+
+        try (RoadNetworkManager.Lease current = manager.acquire()) {
+            assertDoesNotThrow(() -> current.network().offHeapGraph().lat(0));
+        }
+    }
+
+    @Test
+    void offHeapNetworkRejectsDeltas() {
+        manager = new RoadNetworkManager(0.1, 8, 50, new DirectExecutor(), RoadNetwork::compact);
+        manager.publish(RoadNetwork.build(grid(5), true));
+        long version = manager.version();
+
+        assertThrows(ReadOnlyNetworkException.class, () -> manager.apply(RoadDelta.remove(List.of(1L))));
+        assertEquals(version, manager.version());
+    }
+
+    private static boolean hasWay(RoadNetwork network, long wayId) {
+        for (RoadSegment segment : network.segments()) {
+            if (segment.wayId() == wayId) return true;
+        }
+        return false;
+    }
+
+    /**
+     * Runs compaction on the calling thread, right after the delta that triggered it.
+     */
+    private static final class DirectExecutor extends AbstractExecutorService {
+        private volatile boolean shutdown;
+
+        @Override
+        public void execute(Runnable command) {
+            command.run();
+        }
+
+        @Override
+        public void shutdown() {
+            shutdown = true;
+        }
+
+        @Override
+        public List<Runnable> shutdownNow() {
+            shutdown = true;
+            return List.of();
+        }
+
+        @Override
+        public boolean isShutdown() {
+            return shutdown;
+        }
+
+        @Override
+        public boolean isTerminated() {
+            return shutdown;
+        }
+
+        @Override
+        public boolean awaitTermination(long timeout, TimeUnit unit) {
+            return true;
+        }
+    }
+}
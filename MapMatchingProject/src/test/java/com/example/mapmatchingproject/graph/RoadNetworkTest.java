@@ -0,0 +1,247 @@
+package com.example.mapmatchingproject.graph;
+
+import com.example.mapmatchingproject.entities.Point;
+import com.example.mapmatchingproject.entities.RoadSegment;
+import com.example.mapmatchingproject.matchers.impl.EuclideanMatcher;
+import com.example.mapmatchingproject.spatial.SegmentProjector;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class RoadNetworkTest {
+
+    private static final double STEP = 0.0005;
+
+    private final SegmentProjector projector = SegmentProjector.create();
+
+    @Test
+    void offHeapNetworkKeepsNoHeapSegments() {
+        List<RoadSegment> segments = grid(10);
+        try (RoadNetwork network = RoadNetwork.build(segments, true)) {
+            assertNull(network.baseSegments());
+            assertNull(network.index());
+            assertEquals(segments.size(), network.baseSegmentCount());
+            assertEquals(segments.size(), network.segments().size());
+        }
+    }
+
+    @Test
+    void offHeapLookupsMatchHeapLookups() {
+        List<RoadSegment> segments = grid(10);
+        Random random = new Random(30);
+        try (RoadNetwork heap = RoadNetwork.build(segments, false);
+             RoadNetwork offHeap = RoadNetwork.build(segments, true)) {
+            for (int q = 0; q < 200; q++) {
+                Point p = randomPoint(random, 10);
+                double radius = random.nextDouble() * 3 * STEP;
+
+                assertEquals(heap.countWithin(projector, p, radius), offHeap.countWithin(projector, p, radius));
+                assertSameEnds(heap.nearest(projector, p), offHeap.nearest(projector, p));
+            }
+        }
+    }
+
+    @Test
+    void euclideanMatchesTheSameOnBothNetworks() {
+        List<RoadSegment> segments = grid(10);
+        Random random = new Random(31);
+        List<Point> trace = new ArrayList<>();
+        for (int i = 0; i < 100; i++) trace.add(randomPoint(random, 10));
+
+        EuclideanMatcher matcher = new EuclideanMatcher();
+        try (RoadNetwork heap = RoadNetwork.build(segments, false);
+             RoadNetwork offHeap = RoadNetwork.build(segments, true)) {
+            List<Point> expected = matcher.match(trace, heap);
+            List<Point> actual = matcher.match(trace, offHeap);
+            for (int i = 0; i < trace.size(); i++) {
+                assertEquals(expected.get(i).getLat(), actual.get(i).getLat(), 1e-12);
+                assertEquals(expected.get(i).getLon(), actual.get(i).getLon(), 1e-12);
+            }
+        }
+    }
+
+    @Test
+    void emptyOffHeapNetworkHasNoNearestSegment() {
+        try (RoadNetwork network = RoadNetwork.build(List.of(), true)) {
+            assertNull(network.nearest(projector, new Point(49.23, 28.41)));
+            assertEquals(0, network.countWithin(projector, new Point(49.23, 28.41), 1));
+        }
+    }
+
+    @Test
+    void offHeapNetworkRejectsDeltas() {
+        try (RoadNetwork network = RoadNetwork.build(grid(3), true)) {
+            assertThrows(ReadOnlyNetworkException.class, () -> network.apply(RoadDelta.remove(List.of(1L))));
+        }
+    }
+
+    @Test
+    void layeredNetworkMatchesARebuild() {
+        int n = 10;
+        Random random = new Random(32);
+        Map<Long, List<RoadSegment>> expected = new HashMap<>();
+        for (RoadSegment seg : grid(n)) expected.computeIfAbsent(seg.wayId(), _ -> new ArrayList<>()).add(seg);
+        RoadNetwork network = RoadNetwork.build(grid(n), false);
+
+        for (int step = 0; step < 12; step++) {
+            Map<Long, List<RoadSegment>> upserted = new HashMap<>();
+            Set<Long> removed = new HashSet<>();
+            for (int k = 0; k < 3; k++) {
+                // Existing, re-added and brand new ways
+                long wayId = 1 + random.nextInt(2 * n + 5);
+                if (random.nextBoolean()) {
+                    removed.add(wayId);
+                    upserted.remove(wayId);
+                } else {
+                    upserted.put(wayId, randomWay(random, wayId, n));
+                    removed.remove(wayId);
+                }
+            }
+            network = network.apply(new RoadDelta(upserted, removed));
+            removed.forEach(expected::remove);
+            expected.putAll(upserted);
+
+            List<RoadSegment> segments = expected.values().stream().flatMap(List::stream).toList();
+            RoadNetwork rebuilt = RoadNetwork.build(segments, false);
+            assertEquals(step + 1, network.overlay().depth());
+            assertEquals(keys(segments), keys(network.segments()));
+            assertSameLookups(rebuilt, network, random, n);
+        }
+    }
+
+    @Test
+    void applySharesEarlierLayers() {
+        RoadNetwork base = RoadNetwork.build(grid(5), false);
+        RoadNetwork first = base.apply(RoadDelta.remove(List.of(1L)));
+        RoadNetwork second = first.apply(RoadDelta.remove(List.of(2L)));
+
+        assertSame(base.index().base(), second.index().base());
+        assertSame(first.index().layers().getFirst(), second.index().layers().getFirst());
+        assertSame(first.overlay(), second.overlay().below());
+        assertEquals(2, second.index().layers().size());
+        assertEquals(2, second.graph().layerCount());
+        // Removed ways count as changed ways without segments
+        assertEquals(2, second.overlay().wayCount());
+        assertEquals(0, second.overlay().segmentCount());
+    }
+
+    @Test
+    void mergeLayersKeepsContents() {
+        Random random = new Random(33);
+        RoadNetwork network = RoadNetwork.build(grid(10), false);
+        for (long wayId = 1; wayId <= 6; wayId++) {
+            network = network.apply(wayId % 2 == 0
+                    ? RoadDelta.remove(List.of(wayId - 1))
+                    : new RoadDelta(Map.of(wayId, randomWay(random, wayId, 10)), Set.of()));
+        }
+
+        RoadNetwork merged = network.mergeLayers();
+
+        assertEquals(network.version(), merged.version());
+        assertEquals(1, merged.overlay().depth());
+        assertEquals(1, merged.index().layers().size());
+        assertEquals(1, merged.graph().layerCount());
+        assertEquals(network.overlay().ways(), merged.overlay().ways());
+        assertEquals(keys(network.segments()), keys(merged.segments()));
+        assertSameLookups(network, merged, random, 10);
+    }
+
+    @Test
+    void nearestSkipsReplacedWays() {
+        RoadNetwork network = RoadNetwork.build(grid(3), false);
+        // On way 1, the bottom row
+        Point p = new Point(49.23, 28.41 + STEP / 2);
+        assertEquals(1, network.nearest(projector, p).wayId());
+
+        RoadNetwork removed = network.apply(RoadDelta.remove(List.of(1L)));
+        RoadSegment next = removed.nearest(projector, p);
+        assertNotEquals(1, next.wayId());
+        assertEquals(RoadNetwork.build(removed.segments(), false).nearest(projector, p), next);
+
+        List<Long> all = new ArrayList<>();
+        for (long wayId = 1; wayId <= 6; wayId++) all.add(wayId);
+        assertNull(network.apply(RoadDelta.remove(all)).nearest(projector, p));
+    }
+
+    private void assertSameLookups(RoadNetwork expected, RoadNetwork actual, Random random, int n) {
+        for (int q = 0; q < 50; q++) {
+            Point p = randomPoint(random, n);
+            double radius = random.nextDouble() * 3 * STEP;
+            assertEquals(expected.countWithin(projector, p, radius), actual.countWithin(projector, p, radius));
+            assertEquals(distance(expected.nearest(projector, p), p), distance(actual.nearest(projector, p), p), 1e-15);
+        }
+        for (RoadSegment seg : expected.segments().subList(0, Math.min(5, expected.segments().size()))) {
+            String source = RoadGraph.nodeId(seg.a());
+            Map<String, Double> want = expected.graph().shortestDistances(source, 300).distances();
+            Map<String, Double> got = actual.graph().shortestDistances(source, 300).distances();
+            assertEquals(want.keySet(), got.keySet());
+            for (String node : want.keySet()) assertEquals(want.get(node), got.get(node), 1e-9);
+        }
+    }
+
+    private static double distance(RoadSegment seg, Point p) {
+        return seg.project(p).distanceTo(p);
+    }
+
+    // Zigzag way of three segments somewhere on the grid
+    private static List<RoadSegment> randomWay(Random random, long wayId, int n) {
+        List<RoadSegment> segments = new ArrayList<>();
+        Point from = randomPoint(random, n);
+        for (int i = 0; i < 3; i++) {
+            Point to = new Point(from.getLat() + (random.nextDouble() - 0.5) * STEP, from.getLon() + random.nextDouble() * STEP);
+            segments.add(new RoadSegment(from, to, wayId));
+            from = to;
+        }
+        return segments;
+    }
+
+    private static Set<String> keys(List<RoadSegment> segments) {
+        Set<String> keys = new HashSet<>();
+        for (RoadSegment seg : segments) {
+            keys.add(seg.wayId() + ":" + seg.a().getLat() + "," + seg.a().getLon() + "-" + seg.b().getLat() + "," + seg.b().getLon());
+        }
+        return keys;
+    }
+
+    private static void assertSameEnds(RoadSegment expected, RoadSegment actual) {
+        assertEquals(expected.a().getLat(), actual.a().getLat());
+        assertEquals(expected.a().getLon(), actual.a().getLon());
+        assertEquals(expected.b().getLat(), actual.b().getLat());
+        assertEquals(expected.b().getLon(), actual.b().getLon());
+    }
+
+    /**
+     * {@code n} horizontal and {@code n} vertical ways of {@code n - 1} segments each;
+     * horizontal ways have ids 1..n, vertical ones n+1..2n.
+     */
+    static List<RoadSegment> grid(int n) {
+        List<RoadSegment> segments = new ArrayList<>();
+        for (int row = 0; row < n; row++) {
+            for (int col = 0; col + 1 < n; col++) {
+                segments.add(new RoadSegment(node(row, col), node(row, col + 1), row + 1));
+            }
+        }
+        for (int col = 0; col < n; col++) {
+            for (int row = 0; row + 1 < n; row++) {
+                segments.add(new RoadSegment(node(row, col), node(row + 1, col), n + col + 1));
+            }
+        }
+        return segments;
+    }
+
+    private static Point node(int row, int col) {
+        return new Point(49.23 + row * STEP, 28.41 + col * STEP);
+    }
+
+    private static Point randomPoint(Random random, int n) {
+        return new Point(49.23 + random.nextDouble() * n * STEP, 28.41 + random.nextDouble() * n * STEP);
+    }
+}
@@ -0,0 +1,124 @@
+package com.example.mapmatchingproject.graph;
+
+import com.example.mapmatchingproject.entities.Point;
+import com.example.mapmatchingproject.entities.RoadSegment;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertSame;
+
+class ShortestPathsTest {
+
+    // Ten nodes in a row, 100 m apart
+    private static final double STEP_DEGREES = 100 / RoadNetwork.METERS_PER_DEGREE;
+
+    @Test
+    void heapSearchCountsOnlyExpandedNodes() {
+        RoadGraph graph = new RoadGraph(chain(10), RoadNetwork.METERS_PER_DEGREE);
+
+        ShortestPaths<String> paths = graph.shortestDistances(RoadGraph.nodeId(node(0)), 250);
+
+        // Nodes at 0, 100 and 200 m are expanded; the one at 300 m is reached but beyond the bound
+        assertEquals(3, paths.settled());
+        assertEquals(4, paths.distances().size());
+        assertEquals(300, paths.distances().get(RoadGraph.nodeId(node(3))), 1e-6);
+    }
+
+    @Test
+    void offHeapSearchCountsOnlyExpandedNodes() {
+        try (OffHeapRoadGraph graph = OffHeapRoadGraph.build(chain(10), RoadNetwork.METERS_PER_DEGREE);
+             OffHeapRoadGraph.Search search = graph.openSearch()) {
+            search.run(graph.segmentNodeA(0), 250);
+
+            assertEquals(3, search.settled());
+            assertEquals(4, search.reached());
+            assertEquals(300, search.distance(graph.segmentNodeB(2)), 1e-6);
+            assertEquals(Double.MAX_VALUE, search.distance(graph.segmentNodeB(3)));
+        }
+    }
+
+    @Test
+    void searchFromTheMiddleSettlesBothDirections() {
+        RoadGraph graph = new RoadGraph(chain(10), RoadNetwork.METERS_PER_DEGREE);
+
+        ShortestPaths<String> paths = graph.shortestDistances(RoadGraph.nodeId(node(5)), 150);
+
+        assertEquals(3, paths.settled());
+        assertEquals(5, paths.distances().size());
+    }
+
+    @Test
+    void unboundedSearchSettlesEveryReachableNode() {
+        try (OffHeapRoadGraph graph = OffHeapRoadGraph.build(chain(10), RoadNetwork.METERS_PER_DEGREE);
+             OffHeapRoadGraph.Search search = graph.openSearch()) {
+            search.run(graph.segmentNodeA(0), Double.MAX_VALUE);
+
+            assertEquals(10, search.settled());
+            assertEquals(10, search.reached());
+        }
+    }
+
+    @Test
+    void reusedSearchMatchesTheHeapGraph() {
+        List<RoadSegment> segments = grid(8);
+        RoadGraph heap = new RoadGraph(segments, RoadNetwork.METERS_PER_DEGREE);
+        try (OffHeapRoadGraph graph = OffHeapRoadGraph.build(segments, RoadNetwork.METERS_PER_DEGREE);
+             OffHeapRoadGraph.Search search = graph.openSearch()) {
+            // Every run must start from a clean workspace
+            for (int source = 0; source < graph.nodeCount(); source += 7) {
+                search.run(source, 450);
+                ShortestPaths<String> expected = heap.shortestDistances(RoadGraph.nodeId(graph.point(source)), 450);
+
+                assertEquals(expected.settled(), search.settled());
+                assertEquals(expected.distances().size(), search.reached());
+                for (int node = 0; node < graph.nodeCount(); node++) {
+                    Double distance = expected.distances().get(RoadGraph.nodeId(graph.point(node)));
+                    assertEquals(distance == null ? Double.MAX_VALUE : distance, search.distance(node), 1e-6);
+                }
+            }
+        }
+    }
+
+    @Test
+    void closedSearchesAreReused() {
+        try (OffHeapRoadGraph graph = OffHeapRoadGraph.build(chain(10), RoadNetwork.METERS_PER_DEGREE)) {
+            OffHeapRoadGraph.Search first = graph.openSearch();
+            first.run(0, Double.MAX_VALUE);
+            first.close();
+
+            try (OffHeapRoadGraph.Search second = graph.openSearch()) {
+                assertSame(first, second);
+                for (int node = 0; node < graph.nodeCount(); node++) assertEquals(Double.MAX_VALUE, second.distance(node));
+            }
+        }
+    }
+
+    // n x n nodes 100 m apart, horizontal and vertical roads
+    private static List<RoadSegment> grid(int n) {
+        List<RoadSegment> segments = new ArrayList<>();
+        for (int row = 0; row < n; row++) {
+            for (int col = 0; col + 1 < n; col++) {
+                segments.add(new RoadSegment(gridNode(row, col), gridNode(row, col + 1), row));
+                segments.add(new RoadSegment(gridNode(col, row), gridNode(col + 1, row), n + row));
+            }
+        }
+        return segments;
+    }
+
+    private static Point gridNode(int row, int col) {
+        return new Point(49.23 + row * STEP_DEGREES, 28.41 + col * STEP_DEGREES);
+    }
+
+    private static List<RoadSegment> chain(int nodes) {
+        List<RoadSegment> segments = new ArrayList<>();
+        for (int i = 0; i + 1 < nodes; i++) segments.add(new RoadSegment(node(i), node(i + 1), 1));
+        return segments;
+    }
+
+    private static Point node(int i) {
+        return new Point(49.23, 28.41 + i * STEP_DEGREES);
+    }
+}
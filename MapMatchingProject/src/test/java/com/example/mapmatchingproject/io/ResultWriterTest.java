@@ -0,0 +1,153 @@
+package com.example.mapmatchingproject.io;
+
+import com.example.mapmatchingproject.entities.Point;
+import org.json.JSONArray;
+import org.json.JSONObject;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.WritableByteChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class ResultWriterTest {
+
+    private static final List<Point> GPS = List.of(new Point(49.23, 28.41), new Point(49.24, 28.42));
+
+    @TempDir
+    Path dir;
+
+    @Test
+    void geoJsonUsesPointGeometriesBelowTwoMatchedPoints() throws IOException {
+        JSONArray features = new JSONObject(write(OutputFormat.GEOJSON, writer -> {
+            writer.write("none", GPS, List.of());
+            writer.write("one", GPS, List.of(new Point(49.23, 28.41)));
+            writer.write("two", GPS, GPS);
+        })).getJSONArray("features");
+
+        assertEquals(6, features.length());
+        assertMatched(features.getJSONObject(1), "none", "MultiPoint");
+        assertEquals(0, geometry(features.getJSONObject(1)).getJSONArray("coordinates").length());
+
+        assertMatched(features.getJSONObject(3), "one", "Point");
+        JSONArray position = geometry(features.getJSONObject(3)).getJSONArray("coordinates");
+        assertEquals(28.41, position.getDouble(0));
+        assertEquals(49.23, position.getDouble(1));
+
+        assertMatched(features.getJSONObject(5), "two", "LineString");
+        assertEquals(2, geometry(features.getJSONObject(5)).getJSONArray("coordinates").length());
+    }
+
+    @Test
+    void csvQuotesIdsWithSeparators() throws IOException {
+        String csv = write(OutputFormat.CSV, writer -> {
+            writer.write("plain", GPS.subList(0, 1), List.of());
+            writer.write("a,b", GPS.subList(0, 1), List.of());
+            writer.write("say \"hi\"\nnow", GPS.subList(0, 1), List.of());
+        });
+
+        assertEquals("""
+                trace_id,kind,index,lat,lon
+                plain,gps,0,49.2300000,28.4100000
+                "a,b",gps,0,49.2300000,28.4100000
+                "say ""hi""
+                now",gps,0,49.2300000,28.4100000
+                """, csv);
+    }
+
+    @Test
+    void polylineEscapesIdsWithSeparators() throws IOException {
+        String lines = write(OutputFormat.POLYLINE, writer -> writer.write("a\tb\nc\\d", List.of(), List.of()));
+
+        assertEquals("a\\tb\\nc\\\\d\tgps\t\na\\tb\\nc\\\\d\tmatched\t\n", lines);
+    }
+
+    @Test
+    void polylineEncodesTheReferenceExample() throws IOException {
+        List<Point> points = List.of(new Point(38.5, -120.2), new Point(40.7, -120.95), new Point(43.252, -126.453));
+        String lines = write(OutputFormat.POLYLINE, writer -> writer.write("t", points, List.of()));
+
+        assertEquals("t\tgps\t_p~iF~ps|U_ulLnnqC_mqNvxq`@\nt\tmatched\t\n", lines);
+    }
+
+    @Test
+    void nonFiniteCoordinatesAreRejectedBeforeAnythingIsWritten() throws IOException {
+        List<Point> broken = List.of(new Point(49.23, 28.41), new Point(Double.NaN, 28.42));
+        for (OutputFormat format : OutputFormat.values()) {
+            String content = write(format, writer -> {
+                writer.write("ok", GPS, GPS);
+                IllegalArgumentException e = assertThrows(IllegalArgumentException.class,
+                        () -> writer.write("bad", GPS, broken));
+                assertTrue(e.getMessage().contains("matched point 1"), e.getMessage());
+                assertThrows(IllegalArgumentException.class,
+                        () -> writer.write("bad", List.of(new Point(49.23, Double.POSITIVE_INFINITY)), GPS));
+            });
+
+            assertFalse(content.contains("bad"), format + ": " + content);
+            if (format == OutputFormat.GEOJSON) assertEquals(2, new JSONObject(content).getJSONArray("features").length());
+        }
+    }
+
+    @Test
+    void geoJsonCloseReleasesTheChannelWhenTheTrailerFails() throws IOException {
+        FailingChannel channel = new FailingChannel();
+        BufferedChannelOutput out = new BufferedChannelOutput(channel);
+        GeoJsonResultWriter writer = new GeoJsonResultWriter(out);
+        // Fill the buffer to the last byte so the trailer has to flush
+        out.put(new byte[64 * 1024 - "{\"type\":\"FeatureCollection\",\"features\":[\n".length()]);
+        channel.failing = true;
+
+        assertThrows(IOException.class, writer::close);
+        assertFalse(channel.isOpen());
+    }
+
+    private static void assertMatched(JSONObject feature, String traceId, String geometryType) {
+        assertEquals(traceId, feature.getJSONObject("properties").getString("trace"));
+        assertEquals("matched", feature.getJSONObject("properties").getString("kind"));
+        assertEquals(geometryType, geometry(feature).getString("type"));
+    }
+
+    private static JSONObject geometry(JSONObject feature) {
+        return feature.getJSONObject("geometry");
+    }
+
+    private String write(OutputFormat format, WriterAction action) throws IOException {
+        Path file = dir.resolve(format.fileName("result"));
+        try (MatchResultWriter writer = format.open(file)) {
+            action.accept(writer);
+        }
+        return Files.readString(file);
+    }
+
+    private interface WriterAction {
+        void accept(MatchResultWriter writer) throws IOException;
+    }
+
+    private static final class FailingChannel implements WritableByteChannel {
+        boolean failing;
+        private boolean open = true;
+
+        @Override
+        public int write(ByteBuffer src) throws IOException {
+            if (failing) throw new IOException("No space left on device");
+            int n = src.remaining();
+            src.position(src.limit());
+            return n;
+        }
+
+        @Override
+        public boolean isOpen() {
+            return open;
+        }
+
+        @Override
+        public void close() {
+            open = false;
+        }
+    }
+}
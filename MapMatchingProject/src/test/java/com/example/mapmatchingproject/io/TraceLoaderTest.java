@@ -0,0 +1,220 @@
+package com.example.mapmatchingproject.io;
+
+import com.example.mapmatchingproject.entities.Trace;
+import com.example.mapmatchingproject.entities.TraceSet;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class TraceLoaderTest {
+
+    @TempDir
+    Path dir;
+
+    @Test
+    void binaryRoundTripKeepsEveryColumn() throws IOException {
+        List<Trace> traces = List.of(
+                new Trace("a", new long[]{10, 20, 30}, new double[]{49.23, 49.24, 49.25}, new double[]{28.41, 28.42, 28.43}),
+                new Trace("бус-7", new long[]{-1}, new double[]{-33.9}, new double[]{151.2}),
+                new Trace("", new long[0], new double[0], new double[0]));
+        Path file = dir.resolve("traces.bin");
+
+        TraceLoader.writeBinary(file, traces);
+        TraceSet loaded = TraceLoader.load(file);
+
+        assertEquals(traces.size(), loaded.traces().size());
+        for (int t = 0; t < traces.size(); t++) {
+            Trace expected = traces.get(t);
+            Trace actual = loaded.traces().get(t);
+            assertEquals(expected.id(), actual.id());
+            assertArrayEquals(expected.timestamps(), actual.timestamps());
+            assertArrayEquals(expected.lats(), actual.lats());
+            assertArrayEquals(expected.lons(), actual.lons());
+        }
+        assertEquals(-33.9, loaded.bounds().south());
+        assertEquals(151.2, loaded.bounds().east());
+    }
+
+    @Test
+    void binaryRejectsWrongMagic() throws IOException {
+        Path file = dir.resolve("bad.bin");
+        Files.write(file, header(0x1234, 1, 0).array());
+
+        IOException e = assertThrows(IOException.class, () -> TraceLoader.loadBinary(file));
+        assertTrue(e.getMessage().contains(file.toString()));
+    }
+
+    @Test
+    void binaryRejectsIdLengthBeyondFileSize() throws IOException {
+        Path file = dir.resolve("id.bin");
+        ByteBuffer buffer = header(0x5254_4D4D, 1, 1, Integer.MAX_VALUE, 0);
+        Files.write(file, buffer.array());
+
+        IOException e = assertThrows(IOException.class, () -> TraceLoader.loadBinary(file));
+        assertTrue(e.getMessage().contains(file.toString()));
+    }
+
+    @Test
+    void binaryRejectsPointCountBeyondFileSize() throws IOException {
+        Path file = dir.resolve("points.bin");
+        ByteBuffer buffer = header(0x5254_4D4D, 1, 1, 0, 1_000_000);
+        Files.write(file, buffer.array());
+
+        IOException e = assertThrows(IOException.class, () -> TraceLoader.loadBinary(file));
+        assertTrue(e.getMessage().contains(file.toString()));
+    }
+
+    @Test
+    void binaryRejectsNegativeLengthsAndCounts() throws IOException {
+        Path negativeCount = dir.resolve("count.bin");
+        Files.write(negativeCount, header(0x5254_4D4D, 1, -1).array());
+        assertThrows(IOException.class, () -> TraceLoader.loadBinary(negativeCount));
+
+        Path negativePoints = dir.resolve("negative.bin");
+        Files.write(negativePoints, header(0x5254_4D4D, 1, 1, 0, -5).array());
+        assertThrows(IOException.class, () -> TraceLoader.loadBinary(negativePoints));
+    }
+
+    @Test
+    void binaryRejectsTruncatedFile() throws IOException {
+        Path file = dir.resolve("short.bin");
+        TraceLoader.writeBinary(file, List.of(
+                new Trace("a", new long[]{1, 2}, new double[]{1, 2}, new double[]{3, 4})));
+        byte[] bytes = Files.readAllBytes(file);
+        Files.write(file, java.util.Arrays.copyOf(bytes, bytes.length - 1));
+
+        assertThrows(IOException.class, () -> TraceLoader.loadBinary(file));
+    }
+
+    @Test
+    void csvTwoColumnsWithHeaderIsOneTrace() throws IOException {
+        TraceSet set = csv("lat,lon\n49.23,28.41\n49.24,28.42\n");
+
+        assertEquals(1, set.traces().size());
+        Trace trace = set.traces().getFirst();
+        assertEquals(TraceLoader.DEFAULT_TRACE_ID, trace.id());
+        assertArrayEquals(new double[]{49.23, 49.24}, trace.lats());
+        assertArrayEquals(new double[]{28.41, 28.42}, trace.lons());
+        assertArrayEquals(new long[]{0, 1}, trace.timestamps());
+    }
+
+    @Test
+    void csvAcceptsSpacesTrailingCommaAndCrLf() throws IOException {
+        TraceSet set = csv("lat, lon,\r\n49.23, 28.41,\r\n 49.24 ,28.42\r\n\r\n");
+
+        Trace trace = set.traces().getFirst();
+        assertArrayEquals(new double[]{49.23, 49.24}, trace.lats());
+        assertArrayEquals(new double[]{28.41, 28.42}, trace.lons());
+    }
+
+    @Test
+    void csvFourColumnsSplitsContiguousTraces() throws IOException {
+        TraceSet set = csv("""
+                trace_id,timestamp,lat,lon
+                a,100,49.23,28.41
+                a,101,49.24,28.42
+                b,-5,-33.9,151.2
+                """);
+
+        assertEquals(2, set.traces().size());
+        assertEquals("a", set.traces().get(0).id());
+        assertArrayEquals(new long[]{100, 101}, set.traces().get(0).timestamps());
+        assertEquals("b", set.traces().get(1).id());
+        assertArrayEquals(new long[]{-5}, set.traces().get(1).timestamps());
+        assertEquals(3, set.pointCount());
+    }
+
+    @Test
+    void csvFallsBackForExponentsAndLongMantissas() throws IOException {
+        TraceSet set = csv("4.923e1,2.841E+1\n49.2300000000000001,-28.4100000000000001\n");
+
+        Trace trace = set.traces().getFirst();
+        assertEquals(49.23, trace.lats()[0]);
+        assertEquals(28.41, trace.lons()[0]);
+        assertEquals(Double.parseDouble("49.2300000000000001"), trace.lats()[1]);
+        assertEquals(Double.parseDouble("-28.4100000000000001"), trace.lons()[1]);
+    }
+
+    @Test
+    void csvFastPathMatchesParseDouble() throws IOException {
+        TraceSet set = csv("0.1,-0.3\n+12.345678901234,.5\n");
+
+        Trace trace = set.traces().getFirst();
+        assertEquals(0.1, trace.lats()[0]);
+        assertEquals(-0.3, trace.lons()[0]);
+        assertEquals(12.345678901234, trace.lats()[1]);
+        assertEquals(0.5, trace.lons()[1]);
+    }
+
+    @Test
+    void csvRejectsMalformedRows() {
+        assertMalformed("49.23,28.41\n49.24,abc\n", ":2:");
+        assertMalformed("49.23,28.41\n49.24\n", ":2:");
+        assertMalformed("a,1,2,3,4\n", ":1:");
+        assertMalformed("a,x,49.23,28.41\n", ":1:");
+        assertMalformed("lat,lon\nlat,lon\n", ":2:");
+    }
+
+    @Test
+    void csvRejectsEmptyFields() {
+        assertMalformed("49.2,,28.4\n", ":1: empty field 2");
+        assertMalformed("49.23,28.41\n,49.24,28.42\n", ":2: empty field 1");
+        assertMalformed("a,1,49.23,28.41\na, ,49.24,28.42\n", ":2: empty field 2");
+    }
+
+    @Test
+    void csvRejectsTraceIdsThatReappear() {
+        assertMalformed("""
+                a,1,49.23,28.41
+                b,1,49.24,28.42
+                a,2,49.25,28.43
+                """, ":3: rows of trace a are not contiguous");
+    }
+
+    @Test
+    void csvTimestampsCoverTheLongRange() throws IOException {
+        TraceSet set = csv("a,9223372036854775807,49.23,28.41\na,-9223372036854775808,49.24,28.42\n");
+        assertArrayEquals(new long[]{Long.MAX_VALUE, Long.MIN_VALUE}, set.traces().getFirst().timestamps());
+
+        assertMalformed("a,9223372036854775808,49.23,28.41\n", ":1: timestamp out of range");
+        assertMalformed("a,-9223372036854775809,49.23,28.41\n", ":1: timestamp out of range");
+        assertMalformed("a,99999999999999999999,49.23,28.41\n", ":1: timestamp out of range");
+    }
+
+    @Test
+    void csvBlankLinesAreSkipped() throws IOException {
+        TraceSet set = csv("49.23,28.41\n   \n\t\n49.24,28.42\n");
+        assertEquals(2, set.pointCount());
+    }
+
+    @Test
+    void csvEmptyFileHasNoTraces() throws IOException {
+        assertTrue(csv("").traces().isEmpty());
+        assertTrue(csv("lat,lon\n").traces().isEmpty());
+    }
+
+    private void assertMalformed(String content, String location) {
+        IOException e = assertThrows(IOException.class, () -> csv(content));
+        assertTrue(e.getMessage().contains(location), e.getMessage());
+    }
+
+    private TraceSet csv(String content) throws IOException {
+        Path file = Files.createTempFile(dir, "trace", ".csv");
+        Files.writeString(file, content);
+        return TraceLoader.load(file);
+    }
+
+    private static ByteBuffer header(int... ints) {
+        ByteBuffer buffer = ByteBuffer.allocate(4 * ints.length).order(ByteOrder.LITTLE_ENDIAN);
+        for (int value : ints) buffer.putInt(value);
+        return buffer;
+    }
+}
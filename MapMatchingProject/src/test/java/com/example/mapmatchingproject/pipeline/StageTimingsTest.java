@@ -0,0 +1,78 @@
+package com.example.mapmatchingproject.pipeline;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class StageTimingsTest {
+
+    @Test
+    void stagesAreListedInStartOrder() throws Exception {
+        StageTimings timings = new StageTimings();
+
+        assertEquals("a", timings.measure("first", () -> {
+            sleep(20);
+            return "a";
+        }));
+        timings.measure("second", () -> null);
+
+        List<StageTimings.Stage> stages = timings.stages();
+        assertEquals(List.of("first", "second"), stages.stream().map(StageTimings.Stage::name).toList());
+        assertTrue(stages.get(0).durationMs() >= 20, stages.toString());
+        assertTrue(stages.get(1).startOffsetMs() >= stages.get(0).startOffsetMs() + stages.get(0).durationMs());
+        assertTrue(timings.elapsedMillis() >= stages.get(1).startOffsetMs());
+    }
+
+    @Test
+    void failedStageIsNotRecorded() {
+        StageTimings timings = new StageTimings();
+
+        IllegalStateException e = assertThrows(IllegalStateException.class,
+                () -> timings.measure("broken", () -> { throw new IllegalStateException("boom"); }));
+
+        assertEquals("boom", e.getMessage());
+        assertTrue(timings.stages().isEmpty());
+    }
+
+    @Test
+    void concurrentStagesAreAllRecorded() throws Exception {
+        StageTimings timings = new StageTimings();
+        try (ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor()) {
+            List<Future<Integer>> futures = List.of(
+                    executor.submit(() -> timings.measure("index", () -> 1)),
+                    executor.submit(() -> timings.measure("graph", () -> 2)));
+            for (Future<Integer> f : futures) f.get(5, TimeUnit.SECONDS);
+        }
+
+        assertEquals(2, timings.stages().size());
+    }
+
+    @Test
+    void onlyTheFirstMatchIsRecorded() {
+        StageTimings timings = new StageTimings();
+        assertTrue(timings.firstMatchMillis().isEmpty());
+
+        sleep(20);
+        timings.firstMatch("hmm");
+        long first = timings.firstMatchMillis().orElseThrow();
+        sleep(20);
+        timings.firstMatch("euclidean");
+
+        assertTrue(first >= 20);
+        assertEquals(first, timings.firstMatchMillis().orElseThrow());
+    }
+
+    private static void sleep(long ms) {
+        try {
+            Thread.sleep(ms);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
@@ -0,0 +1,236 @@
+package com.example.mapmatchingproject.pipeline;
+
+import com.example.mapmatchingproject.clients.OverpassClient;
+import com.example.mapmatchingproject.entities.RoadSegment;
+import com.example.mapmatchingproject.graph.RoadGraph;
+import com.example.mapmatchingproject.graph.RoadNetwork;
+import com.example.mapmatchingproject.graph.RoadNetworkManager;
+import com.example.mapmatchingproject.spatial.SegmentStore;
+import org.json.JSONArray;
+import org.json.JSONObject;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.CyclicBarrier;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Function;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Pipeline runs against a trace file and a fake Overpass client; the heap index and graph builds
+ * are wrapped to record when they run.
+ */
+class StartupPipelineTest {
+
+    @TempDir
+    Path dir;
+
+    private final RoadNetworkManager networkManager = new RoadNetworkManager();
+    // Stage names in the order they started
+    private final List<String> events = Collections.synchronizedList(new ArrayList<>());
+
+    @BeforeEach
+    void configureNetwork() {
+        ReflectionTestUtils.setField(networkManager, "searchRadiusM", 50.0);
+    }
+
+    @AfterEach
+    void shutdown() {
+        networkManager.shutdown();
+    }
+
+    @Test
+    void stagesRunInDependencyOrder() throws Exception {
+        StartupPipeline pipeline = pipeline(new FakeOverpass(ways()), indexBuild(null), graphBuild(null));
+
+        RoadNetwork network;
+        try (PipelineRun run = pipeline.start(traces("49.230,28.410\n49.231,28.415\n"))) {
+            network = run.network().get(5, TimeUnit.SECONDS);
+            assertEquals(1, run.traces().get().getTraceSet().traces().size());
+        }
+
+        assertEquals(List.of("overpass fetch"), events.subList(0, 1));
+        assertTrue(events.containsAll(List.of("index build", "graph build")));
+        assertEquals(2, network.segments().size());
+        assertEquals(network.version(), networkManager.version());
+    }
+
+    @Test
+    void stageTimingsFollowTheDependencies() throws Exception {
+        StartupPipeline pipeline = pipeline(new FakeOverpass(ways()), indexBuild(null), graphBuild(null));
+
+        StageTimings timings;
+        try (PipelineRun run = pipeline.start(traces("49.230,28.410\n"))) {
+            run.network().get(5, TimeUnit.SECONDS);
+            timings = run.timings();
+        }
+
+        List<String> names = timings.stages().stream().map(StageTimings.Stage::name).toList();
+        assertEquals(List.of("trace loading", "overpass fetch", "segment parsing"), names.subList(0, 3));
+        assertTrue(names.containsAll(List.of("spatial index build", "graph build")));
+        assertStartsAfter(timings, "overpass fetch", "trace loading");
+        assertStartsAfter(timings, "segment parsing", "overpass fetch");
+        assertStartsAfter(timings, "spatial index build", "segment parsing");
+        assertStartsAfter(timings, "graph build", "segment parsing");
+    }
+
+    @Test
+    void indexAndGraphAreBuiltConcurrently() throws Exception {
+        // Each build waits for the other to start; run one after the other they would time out
+        CyclicBarrier bothRunning = new CyclicBarrier(2);
+        StartupPipeline pipeline = pipeline(new FakeOverpass(ways()), indexBuild(bothRunning), graphBuild(bothRunning));
+
+        try (PipelineRun run = pipeline.start(traces("49.230,28.410\n"))) {
+            assertEquals(2, run.network().get(10, TimeUnit.SECONDS).segments().size());
+        }
+    }
+
+    @Test
+    void overpassFailureFailsTheNetworkWithoutBuilding() throws IOException {
+        FakeOverpass overpass = new FakeOverpass(null);
+        StartupPipeline pipeline = pipeline(overpass, indexBuild(null), graphBuild(null));
+
+        try (PipelineRun run = pipeline.start(traces("49.230,28.410\n"))) {
+            ExecutionException e = assertThrows(ExecutionException.class, () -> run.network().get(5, TimeUnit.SECONDS));
+            assertEquals("Overpass unavailable", rootCause(e).getMessage());
+            assertFalse(run.traces().isCompletedExceptionally());
+        }
+
+        assertEquals(1, overpass.calls.get());
+        assertEquals(List.of("overpass fetch"), events);
+        assertEquals(-1, networkManager.version());
+    }
+
+    @Test
+    void unreadableTraceFileFailsEveryStage() {
+        FakeOverpass overpass = new FakeOverpass(ways());
+        StartupPipeline pipeline = pipeline(overpass, indexBuild(null), graphBuild(null));
+
+        try (PipelineRun run = pipeline.start(dir.resolve("missing.csv"))) {
+            assertThrows(ExecutionException.class, () -> run.traces().get(5, TimeUnit.SECONDS));
+            assertThrows(ExecutionException.class, () -> run.network().get(5, TimeUnit.SECONDS));
+        }
+
+        assertEquals(0, overpass.calls.get());
+        assertTrue(events.isEmpty());
+    }
+
+    @Test
+    void emptyTraceSetSkipsTheFetch() throws Exception {
+        FakeOverpass overpass = new FakeOverpass(ways());
+        StartupPipeline pipeline = pipeline(overpass, indexBuild(null), graphBuild(null));
+
+        try (PipelineRun run = pipeline.start(traces("lat,lon\n"))) {
+            RoadNetwork network = run.network().get(5, TimeUnit.SECONDS);
+            assertTrue(run.traces().get().getTraceSet().traces().isEmpty());
+            assertTrue(network.segments().isEmpty());
+            assertEquals(0, network.nodeCount());
+        }
+
+        assertEquals(0, overpass.calls.get());
+        assertEquals(0, networkManager.version());
+    }
+
+    private StartupPipeline pipeline(OverpassClient overpass, Function<List<RoadSegment>, SegmentStore> indexBuild,
+                                     Function<List<RoadSegment>, RoadGraph> graphBuild) {
+        return new StartupPipeline(overpass, networkManager, indexBuild, graphBuild);
+    }
+
+    private Function<List<RoadSegment>, SegmentStore> indexBuild(CyclicBarrier barrier) {
+        return segments -> {
+            events.add("index build");
+            await(barrier);
+            return SegmentStore.from(segments);
+        };
+    }
+
+    private Function<List<RoadSegment>, RoadGraph> graphBuild(CyclicBarrier barrier) {
+        return segments -> {
+            events.add("graph build");
+            await(barrier);
+            return new RoadGraph(segments, RoadNetwork.METERS_PER_DEGREE);
+        };
+    }
+
+    private static void await(CyclicBarrier barrier) {
+        if (barrier == null) return;
+        try {
+            barrier.await(5, TimeUnit.SECONDS);
+        } catch (Exception e) {
+            throw new IllegalStateException("Index and graph builds did not overlap", e);
+        }
+    }
+
+    private static void assertStartsAfter(StageTimings timings, String later, String earlier) {
+        StageTimings.Stage first = stage(timings, earlier), second = stage(timings, later);
+        assertTrue(second.startOffsetMs() >= first.startOffsetMs() + first.durationMs(),
+                later + " started before " + earlier + " finished: " + timings.stages());
+    }
+
+    private static StageTimings.Stage stage(StageTimings timings, String name) {
+        return timings.stages().stream().filter(s -> s.name().equals(name)).findFirst()
+                .orElseThrow(() -> new AssertionError("No stage " + name + ": " + timings.stages()));
+    }
+
+    private static Throwable rootCause(Throwable e) {
+        while ((e instanceof ExecutionException || e instanceof CompletionException) && e.getCause() != null) {
+            e = e.getCause();
+        }
+        return e;
+    }
+
+    private Path traces(String csv) throws IOException {
+        Path file = dir.resolve("traces.csv");
+        Files.writeString(file, csv);
+        return file;
+    }
+
+    // Two ways of one segment each, sharing a node
+    private static JSONArray ways() {
+        return new JSONArray()
+                .put(way(1, 49.230, 28.410, 49.230, 28.420))
+                .put(way(2, 49.230, 28.420, 49.240, 28.420));
+    }
+
+    private static JSONObject way(long id, double lat1, double lon1, double lat2, double lon2) {
+        return new JSONObject()
+                .put("id", id)
+                .put("geometry", new JSONArray()
+                        .put(new JSONObject().put("lat", lat1).put("lon", lon1))
+                        .put(new JSONObject().put("lat", lat2).put("lon", lon2)));
+    }
+
+    /**
+     * Returns fixed ways, or fails when there are none.
+     */
+    private class FakeOverpass extends OverpassClient {
+        private final JSONArray ways;
+        final AtomicInteger calls = new AtomicInteger();
+
+        FakeOverpass(JSONArray ways) {
+            super(null);
+            this.ways = ways;
+        }
+
+        @Override
+        public JSONArray getJSONFromOverpass(double south, double west, double north, double east) {
+            calls.incrementAndGet();
+            events.add("overpass fetch");
+            if (ways == null) throw new IllegalStateException("Overpass unavailable");
+            return ways;
+        }
+    }
+}
@@ -0,0 +1,111 @@
+package com.example.mapmatchingproject.profiling;
+
+import com.example.mapmatchingproject.entities.Point;
+import com.example.mapmatchingproject.entities.RoadSegment;
+import com.example.mapmatchingproject.graph.RoadNetwork;
+import com.example.mapmatchingproject.matchers.impl.HMMMapMatcher;
+import jdk.jfr.Event;
+import jdk.jfr.Recording;
+import jdk.jfr.consumer.RecordedEvent;
+import jdk.jfr.consumer.RecordingFile;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Records one HMM match with JFR: three points along a road, then one on a road
+ * too far away to route to, which restarts the chain.
+ */
+class HmmEventsTest {
+
+    @TempDir
+    Path dir;
+
+    @Test
+    void matchEmitsTraceStepRestartAndMatrixEvents() throws IOException {
+        List<RecordedEvent> events = recordMatch(List.of(
+                new Point(49.2301, 28.411), new Point(49.2301, 28.412),
+                new Point(49.2301, 28.413), new Point(49.3001, 28.411)));
+
+        RecordedEvent trace = single(events, "mapmatching.HmmTrace");
+        assertEquals(4, trace.getInt("points"));
+        assertTrue(trace.getLong("candidates") >= 4);
+        assertTrue(trace.getInt("maxCandidates") >= 1);
+        assertEquals(1, trace.getInt("restarts"));
+        assertTrue(trace.getLong("nodesSettled") > 0);
+        assertTrue(trace.getLong("candidateTime") > 0);
+        assertTrue(trace.getLong("routingTime") > 0);
+        assertNull(trace.getStackTrace());
+
+        List<RecordedEvent> steps = named(events, "mapmatching.HmmStep");
+        steps.sort(Comparator.comparingInt(e -> e.getInt("step")));
+        assertEquals(List.of(1, 2, 3), steps.stream().map(e -> e.getInt("step")).toList());
+        for (RecordedEvent step : steps) {
+            assertEquals(step.getInt("fromCandidates") * step.getInt("toCandidates"), step.getInt("matrixCells"));
+            assertEquals(step.getInt("step") == 3, step.getBoolean("chainBroken"));
+        }
+        assertTrue(steps.getFirst().getLong("nodesSettled") > 0);
+
+        RecordedEvent restart = single(events, "mapmatching.HmmRestart");
+        assertEquals(3, restart.getInt("step"));
+        assertEquals(steps.get(2).getInt("toCandidates"), restart.getInt("candidates"));
+        assertTrue(restart.getDouble("linearDistance") > 7000);
+
+        List<RecordedEvent> matrices = named(events, "mapmatching.RouteMatrix");
+        assertEquals(3, matrices.size());
+        for (RecordedEvent matrix : matrices) {
+            assertEquals("heap", matrix.getString("graph"));
+            assertEquals(2 * matrix.getInt("sources"), matrix.getInt("searches"));
+            assertTrue(matrix.getInt("destinations") > 0);
+        }
+    }
+
+    private List<RecordedEvent> recordMatch(List<Point> trace) throws IOException {
+        HMMMapMatcher matcher = new HMMMapMatcher();
+        ReflectionTestUtils.setField(matcher, "sigma", 4.07);
+        ReflectionTestUtils.setField(matcher, "beta", 10.0);
+        ReflectionTestUtils.setField(matcher, "searchRadiusM", 50.0);
+
+        Path file = dir.resolve("match.jfr");
+        try (RoadNetwork network = RoadNetwork.build(roads(), false);
+             Recording recording = new Recording()) {
+            for (Class<? extends Event> type : List.of(HmmTraceEvent.class, HmmStepEvent.class,
+                    HmmRestartEvent.class, RouteMatrixEvent.class)) {
+                recording.enable(type).withoutThreshold();
+            }
+            recording.start();
+            assertEquals(trace.size(), matcher.match(trace, network).size());
+            recording.stop();
+            recording.dump(file);
+        }
+        return RecordingFile.readAllEvents(file);
+    }
+
+    // A road along latitude 49.230 and a short one ~7.8 km north of it
+    private static List<RoadSegment> roads() {
+        List<RoadSegment> segments = new ArrayList<>();
+        for (int i = 0; i < 10; i++) {
+            segments.add(new RoadSegment(new Point(49.230, 28.410 + i * 0.001), new Point(49.230, 28.411 + i * 0.001), 1));
+        }
+        segments.add(new RoadSegment(new Point(49.300, 28.410), new Point(49.300, 28.412), 2));
+        return segments;
+    }
+
+    private static List<RecordedEvent> named(List<RecordedEvent> events, String name) {
+        return new ArrayList<>(events.stream().filter(e -> e.getEventType().getName().equals(name)).toList());
+    }
+
+    private static RecordedEvent single(List<RecordedEvent> events, String name) {
+        List<RecordedEvent> matching = named(events, name);
+        assertEquals(1, matching.size(), name);
+        return matching.getFirst();
+    }
+}
@@ -0,0 +1,299 @@
+package com.example.mapmatchingproject.scheduling;
+
+import com.example.mapmatchingproject.entities.Point;
+import com.example.mapmatchingproject.entities.RoadSegment;
+import com.example.mapmatchingproject.graph.RoadDelta;
+import com.example.mapmatchingproject.graph.RoadNetwork;
+import com.example.mapmatchingproject.graph.RoadNetworkManager;
+import com.example.mapmatchingproject.matchers.MapMatcher;
+import com.example.mapmatchingproject.matchers.impl.EuclideanMatcher;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Predicate;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Admission decisions with matchers that block until released; a trace of n points costs n
+ * since the test matchers need no road network.
+ */
+class MatchSchedulerTest {
+
+    private final RoadNetworkManager networkManager = new RoadNetworkManager();
+    private final ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor();
+    // Names of the matchers in the order they started
+    private final List<String> started = Collections.synchronizedList(new ArrayList<>());
+
+    @BeforeEach
+    void configureNetwork() {
+        ReflectionTestUtils.setField(networkManager, "searchRadiusM", 50.0);
+    }
+
+    @AfterEach
+    void shutdown() {
+        executor.shutdownNow();
+        networkManager.shutdown();
+    }
+
+    @Test
+    void fullQueueRejects() throws Exception {
+        MatchScheduler scheduler = scheduler(new BlockingEuclidean(), 1, 1, 100, OverflowPolicy.REJECT);
+        Gate first = new Gate("first"), second = new Gate("second");
+
+        Future<List<Point>> running = submit(scheduler, first, 1);
+        first.awaitStarted();
+        Future<List<Point>> queued = submit(scheduler, second, 1);
+        awaitMetrics(scheduler, m -> m.queueDepth() == 1);
+
+        assertThrows(MatchRejectedException.class, () -> scheduler.match(new Gate("third"), trace(1)));
+        assertEquals(1, scheduler.metrics().queueFull());
+        assertEquals(1, scheduler.metrics().rejected());
+
+        first.open();
+        second.open();
+        assertEquals(1, running.get(5, TimeUnit.SECONDS).size());
+        assertEquals(1, queued.get(5, TimeUnit.SECONDS).size());
+        assertEquals(List.of("first", "second"), started);
+    }
+
+    @Test
+    void queuedTraceTimesOut() throws Exception {
+        MatchScheduler scheduler = scheduler(new BlockingEuclidean(), 1, 10, 100, OverflowPolicy.REJECT);
+        ReflectionTestUtils.setField(scheduler, "queueTimeout", Duration.ofMillis(50));
+        Gate first = new Gate("first");
+
+        Future<List<Point>> running = submit(scheduler, first, 1);
+        first.awaitStarted();
+
+        assertThrows(MatchRejectedException.class, () -> scheduler.match(new Gate("late"), trace(1)));
+        SchedulerMetrics metrics = scheduler.metrics();
+        assertEquals(1, metrics.timedOut());
+        assertEquals(0, metrics.queueDepth());
+
+        first.open();
+        running.get(5, TimeUnit.SECONDS);
+        assertEquals(List.of("first"), started);
+    }
+
+    @Test
+    void largeTraceAtTheHeadIsNotOvertaken() throws Exception {
+        // Budget 10: 6 + 6 does not fit, 6 + 1 would
+        MatchScheduler scheduler = scheduler(new BlockingEuclidean(), 4, 10, 10, OverflowPolicy.REJECT);
+        Gate first = new Gate("first"), large = new Gate("large"), small = new Gate("small");
+
+        Future<List<Point>> a = submit(scheduler, first, 6);
+        first.awaitStarted();
+        Future<List<Point>> b = submit(scheduler, large, 6);
+        awaitMetrics(scheduler, m -> m.queueDepth() == 1);
+        Future<List<Point>> c = submit(scheduler, small, 1);
+        awaitMetrics(scheduler, m -> m.queueDepth() == 2);
+
+        assertFalse(small.started.await(100, TimeUnit.MILLISECONDS));
+        assertEquals(List.of("first"), started);
+
+        // Once the first finishes both fit
+        first.open();
+        large.awaitStarted();
+        small.awaitStarted();
+        assertEquals(7, scheduler.metrics().inFlightCost());
+
+        large.open();
+        small.open();
+        for (Future<List<Point>> f : List.of(a, b, c)) f.get(5, TimeUnit.SECONDS);
+        assertEquals(0, scheduler.metrics().running());
+    }
+
+    @Test
+    void traceAboveTheBudgetRunsAlone() throws Exception {
+        MatchScheduler scheduler = scheduler(new BlockingEuclidean(), 4, 10, 10, OverflowPolicy.REJECT);
+        Gate large = new Gate("large"), small = new Gate("small");
+
+        Future<List<Point>> a = submit(scheduler, large, 20);
+        large.awaitStarted();
+        SchedulerMetrics metrics = scheduler.metrics();
+        assertEquals(1, metrics.running());
+        assertEquals(20, metrics.inFlightCost());
+
+        Future<List<Point>> b = submit(scheduler, small, 1);
+        awaitMetrics(scheduler, m -> m.queueDepth() == 1);
+        assertFalse(small.started.await(100, TimeUnit.MILLISECONDS));
+
+        large.open();
+        small.open();
+        assertEquals(20, a.get(5, TimeUnit.SECONDS).size());
+        assertEquals(1, b.get(5, TimeUnit.SECONDS).size());
+        assertEquals(2, scheduler.metrics().admitted());
+    }
+
+    @Test
+    void fallbackBeyondItsLimitIsRejected() throws Exception {
+        networkManager.publish(RoadNetwork.build(List.of(
+                new RoadSegment(new Point(49.230, 28.410), new Point(49.230, 28.420), 1),
+                new RoadSegment(new Point(49.230, 28.420), new Point(49.240, 28.420), 2)), false));
+        BlockingEuclidean fallback = new BlockingEuclidean();
+        // Every trace of more than one point is too costly and falls back
+        MatchScheduler scheduler = scheduler(fallback, 1, 10, 100, OverflowPolicy.FALLBACK);
+        ReflectionTestUtils.setField(scheduler, "maxTraceCost", 1L);
+        ReflectionTestUtils.setField(scheduler, "maxFallbackConcurrent", 1);
+
+        Future<List<Point>> first = submit(scheduler, new Gate("first"), 2);
+        assertTrue(fallback.started.await(5, TimeUnit.SECONDS));
+        assertEquals(1, scheduler.metrics().runningFallbacks());
+
+        assertThrows(MatchRejectedException.class, () -> scheduler.match(new Gate("second"), trace(2)));
+        SchedulerMetrics metrics = scheduler.metrics();
+        assertEquals(2, metrics.tooCostly());
+        assertEquals(1, metrics.fallbacks());
+        assertEquals(1, metrics.fallbackFull());
+        assertEquals(1, metrics.rejected());
+
+        fallback.release.countDown();
+        assertEquals(2, first.get(5, TimeUnit.SECONDS).size());
+        assertEquals(0, scheduler.metrics().runningFallbacks());
+        assertTrue(started.isEmpty());
+    }
+
+    @Test
+    void networkMatcherCostFollowsPublishAndCompaction() throws InterruptedException {
+        Point p = new Point(49.23011, 28.41101);
+        List<RoadSegment> segments = new ArrayList<>();
+        for (long way = 1; way <= 3; way++) {
+            segments.add(new RoadSegment(new Point(49.23010, 28.41100), new Point(49.23012, 28.41102), way));
+        }
+        // Every delta is compacted right away
+        ReflectionTestUtils.setField(networkManager, "compactionRatio", 0.0);
+        networkManager.publish(RoadNetwork.build(segments, false));
+        long published = networkManager.version();
+        MatchScheduler scheduler = scheduler(new BlockingEuclidean(), 1, 10, 100, OverflowPolicy.REJECT);
+        MapMatcher hmm = new Gate("hmm") {
+            @Override
+            public boolean requiresRoadNetwork() {
+                return true;
+            }
+        };
+
+        // points x candidates^2
+        assertEquals(5 * 3 * 3, scheduler.estimateCost(hmm, List.of(p, p, p, p, p)));
+
+        networkManager.apply(RoadDelta.remove(List.of(1L)));
+        // The grid is rebuilt with the compacted network, the version after the delta
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(5);
+        while (networkManager.version() < published + 2) {
+            if (System.nanoTime() > deadline) fail("Delta was never compacted");
+            Thread.sleep(5);
+        }
+        assertEquals(5 * 2 * 2, scheduler.estimateCost(hmm, List.of(p, p, p, p, p)));
+        // At least one candidate per point, even off the map
+        assertEquals(2, scheduler.estimateCost(hmm, List.of(new Point(0, 0), new Point(0, 0))));
+    }
+
+    private MatchScheduler scheduler(EuclideanMatcher fallback, int maxConcurrent, int queueCapacity,
+                                     long costBudget, OverflowPolicy policy) {
+        MatchScheduler scheduler = new MatchScheduler(networkManager, fallback);
+        ReflectionTestUtils.setField(scheduler, "maxConcurrent", maxConcurrent);
+        ReflectionTestUtils.setField(scheduler, "queueCapacity", queueCapacity);
+        ReflectionTestUtils.setField(scheduler, "costBudget", costBudget);
+        ReflectionTestUtils.setField(scheduler, "maxTraceCost", 1000L);
+        ReflectionTestUtils.setField(scheduler, "queueTimeout", Duration.ofSeconds(30));
+        ReflectionTestUtils.setField(scheduler, "overflowPolicy", policy);
+        ReflectionTestUtils.setField(scheduler, "maxFallbackConcurrent", 4);
+        return scheduler;
+    }
+
+    private Future<List<Point>> submit(MatchScheduler scheduler, MapMatcher matcher, int points) {
+        return executor.submit(() -> scheduler.match(matcher, trace(points)));
+    }
+
+    private static void awaitMetrics(MatchScheduler scheduler, Predicate<SchedulerMetrics> condition)
+            throws InterruptedException {
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(5);
+        while (!condition.test(scheduler.metrics())) {
+            if (System.nanoTime() > deadline) fail("Scheduler never reached the expected state: " + scheduler.metrics());
+            Thread.sleep(5);
+        }
+    }
+
+    private static List<Point> trace(int n) {
+        List<Point> points = new ArrayList<>();
+        for (int i = 0; i < n; i++) points.add(new Point(49.2301, 28.411 + i * 0.001));
+        return points;
+    }
+
+    /**
+     * Matcher without a road network that records its start and returns once opened.
+     */
+    private class Gate implements MapMatcher {
+        private final String name;
+        final CountDownLatch started = new CountDownLatch(1);
+        private final CountDownLatch release = new CountDownLatch(1);
+
+        Gate(String name) {
+            this.name = name;
+        }
+
+        void awaitStarted() throws InterruptedException {
+            assertTrue(started.await(5, TimeUnit.SECONDS), name + " did not start");
+        }
+
+        void open() {
+            release.countDown();
+        }
+
+        @Override
+        public void initContext(List<RoadSegment> segments) {
+        }
+
+        @Override
+        public boolean requiresRoadNetwork() {
+            return false;
+        }
+
+        @Override
+        public List<Point> match(List<Point> rawTrace) {
+            MatchSchedulerTest.this.started.add(name);
+            started.countDown();
+            try {
+                release.await();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            return rawTrace;
+        }
+
+        @Override
+        public String getMatcherName() {
+            return name;
+        }
+    }
+
+    /**
+     * Euclidean fallback that holds its slot until released.
+     */
+    private static final class BlockingEuclidean extends EuclideanMatcher {
+        final CountDownLatch started = new CountDownLatch(1);
+        final CountDownLatch release = new CountDownLatch(1);
+
+        @Override
+        public List<Point> match(List<Point> rawTrace, RoadNetwork network) {
+            started.countDown();
+            try {
+                release.await();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            return super.match(rawTrace, network);
+        }
+    }
+}
@@ -0,0 +1,195 @@
+package com.example.mapmatchingproject.sharding;
+
+import com.example.mapmatchingproject.entities.BoundingBox;
+import com.example.mapmatchingproject.entities.Point;
+import com.example.mapmatchingproject.io.OutputFormat;
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+import org.json.JSONArray;
+import org.json.JSONObject;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.boot.web.client.RestTemplateBuilder;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.web.client.RestClientException;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class ShardCoordinatorTest {
+
+    // One row, two columns: shard 0 west of 28.45, shard 1 east of it
+    private static final ShardGrid GRID = new ShardGrid(new BoundingBox(49.20, 28.35, 49.30, 28.55), 1, 2, 0.01);
+
+    @TempDir
+    Path dir;
+
+    private final List<HttpServer> servers = new ArrayList<>();
+    // Holds the answers of stalled workers until the test ends
+    private final CountDownLatch release = new CountDownLatch(1);
+    private final AtomicInteger stalledCalls = new AtomicInteger();
+
+    @AfterEach
+    void stopWorkers() {
+        release.countDown();
+        servers.forEach(server -> server.stop(0));
+    }
+
+    @Test
+    void failedPieceIsRetriedOnTheNextReplica() throws Exception {
+        // Round-robin sends one of the two pieces to w1 first
+        FakeClient client = new FakeClient(Map.of("w1", List.of(0, 1), "w2", List.of(0, 1)), Set.of("w1"));
+
+        coordinator(client, List.of("w1", "w2")).run();
+
+        List<String> rows = Files.readAllLines(dir.resolve("out").resolve(OutputFormat.CSV.fileName("Sharded")));
+        assertEquals(1 + 2 * (3 + 2), rows.size());
+        assertTrue(client.calls.stream().anyMatch(call -> call.startsWith("w1:")));
+        assertTrue(client.calls.containsAll(List.of("w2:0", "w2:1")));
+    }
+
+    @Test
+    void traceIsSkippedWhenEveryReplicaFails() throws Exception {
+        // Only w1 serves shard 1 and it always fails, so trace "east" cannot be matched
+        FakeClient client = new FakeClient(Map.of("w1", List.of(1), "w2", List.of(0)), Set.of("w1"));
+
+        coordinator(client, List.of("w1", "w2")).run();
+
+        List<String> rows = Files.readAllLines(dir.resolve("out").resolve(OutputFormat.CSV.fileName("Sharded")));
+        assertEquals(1 + 2 * 3, rows.size());
+        for (String row : rows.subList(1, rows.size())) {
+            assertTrue(row.startsWith("west,"), row);
+        }
+    }
+
+    @Test
+    void stalledWorkerTimesOut() throws Exception {
+        String url = worker(true);
+        ShardClient client = httpClient();
+
+        long start = System.nanoTime();
+        assertThrows(RestClientException.class, () -> client.match(url, 0, List.of(new Point(49.25, 28.40))));
+        assertTrue(System.nanoTime() - start < TimeUnit.SECONDS.toNanos(5));
+        assertEquals(1, stalledCalls.get());
+    }
+
+    @Test
+    void piecesOfAStalledWorkerMoveToTheNextReplica() throws Exception {
+        String stalled = worker(true), healthy = worker(false);
+
+        long start = System.nanoTime();
+        coordinator(httpClient(), List.of(stalled, healthy)).run();
+        assertTrue(System.nanoTime() - start < TimeUnit.SECONDS.toNanos(10));
+
+        List<String> rows = Files.readAllLines(dir.resolve("out").resolve(OutputFormat.CSV.fileName("Sharded")));
+        assertEquals(1 + 2 * (3 + 2), rows.size());
+        assertTrue(stalledCalls.get() >= 1);
+    }
+
+    private ShardClient httpClient() {
+        return new ShardClient(new RestTemplateBuilder(), Duration.ofSeconds(1), Duration.ofMillis(300));
+    }
+
+    /**
+     * Local worker serving both shards. A stalled one answers {@code /shard/info} but never a match.
+     */
+    private String worker(boolean stall) throws IOException {
+        HttpServer server = HttpServer.create(new InetSocketAddress("localhost", 0), 0);
+        server.setExecutor(Executors.newVirtualThreadPerTaskExecutor());
+        server.createContext("/shard/info", exchange -> respond(exchange, 200,
+                new JSONObject().put("shards", new JSONArray().put(0).put(1)).put("version", 0)));
+        server.createContext("/shard/match", exchange -> {
+            JSONObject request = new JSONObject(new String(exchange.getRequestBody().readAllBytes(), StandardCharsets.UTF_8));
+            if (stall) {
+                stalledCalls.incrementAndGet();
+                try {
+                    release.await();
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+                respond(exchange, 503, new JSONObject());
+            } else {
+                respond(exchange, 200, new JSONObject().put("points", request.getJSONArray("points")));
+            }
+        });
+        server.start();
+        servers.add(server);
+        return "http://localhost:" + server.getAddress().getPort();
+    }
+
+    private static void respond(HttpExchange exchange, int status, JSONObject body) throws IOException {
+        byte[] bytes = body.toString().getBytes(StandardCharsets.UTF_8);
+        exchange.getResponseHeaders().add("Content-Type", "application/json");
+        exchange.sendResponseHeaders(status, bytes.length);
+        try (OutputStream out = exchange.getResponseBody()) {
+            out.write(bytes);
+        }
+    }
+
+    private ShardCoordinator coordinator(ShardClient client, List<String> workers) throws Exception {
+        Path traces = dir.resolve("traces.csv");
+        Files.writeString(traces, """
+                trace_id,timestamp,lat,lon
+                west,0,49.250,28.400
+                west,1,49.251,28.401
+                west,2,49.252,28.402
+                east,0,49.250,28.500
+                east,1,49.251,28.501
+                """);
+
+        ShardCoordinator coordinator = new ShardCoordinator(GRID, client);
+        ReflectionTestUtils.setField(coordinator, "workerUrls", workers);
+        ReflectionTestUtils.setField(coordinator, "traceFile", traces);
+        ReflectionTestUtils.setField(coordinator, "contextPoints", 2);
+        ReflectionTestUtils.setField(coordinator, "startupTimeout", Duration.ofSeconds(5));
+        ReflectionTestUtils.setField(coordinator, "outputDir", dir.resolve("out"));
+        ReflectionTestUtils.setField(coordinator, "outputFormats", List.of(OutputFormat.CSV));
+        ReflectionTestUtils.setField(coordinator, "htmlViewer", false);
+        return coordinator;
+    }
+
+    /**
+     * Echoes the points back; workers in {@code failing} answer every match with an error.
+     */
+    private static final class FakeClient extends ShardClient {
+        private final Map<String, List<Integer>> shards;
+        private final Set<String> failing;
+        final List<String> calls = new ArrayList<>();
+
+        FakeClient(Map<String, List<Integer>> shards, Set<String> failing) {
+            super(null);
+            this.shards = shards;
+            this.failing = failing;
+        }
+
+        @Override
+        public WorkerInfo info(String workerUrl) {
+            return new WorkerInfo(shards.get(workerUrl), 0);
+        }
+
+        @Override
+        public List<Point> match(String workerUrl, int shardId, List<Point> points) {
+            synchronized (calls) {
+                calls.add(workerUrl + ":" + shardId);
+            }
+            if (failing.contains(workerUrl)) throw new RestClientException("429 Too Many Requests");
+            return points;
+        }
+    }
+}
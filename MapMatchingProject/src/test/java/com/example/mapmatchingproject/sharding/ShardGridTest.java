@@ -0,0 +1,65 @@
+package com.example.mapmatchingproject.sharding;
+
+import com.example.mapmatchingproject.entities.BoundingBox;
+import com.example.mapmatchingproject.entities.Point;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class ShardGridTest {
+
+    // 2 x 2 grid of 1 x 1 degree shards: 0 south-west, 1 south-east, 2 north-west, 3 north-east
+    static final ShardGrid GRID = new ShardGrid(new BoundingBox(0, 0, 2, 2), 2, 2, 0.1);
+
+    @Test
+    void shardsAreNumberedRowByRowFromTheSouthWest() {
+        assertEquals(new BoundingBox(0, 0, 1, 1), GRID.shard(0).core());
+        assertEquals(new BoundingBox(0, 1, 1, 2), GRID.shard(1).core());
+        assertEquals(new BoundingBox(1, 0, 2, 1), GRID.shard(2).core());
+        assertEquals(new BoundingBox(1, 1, 2, 2), GRID.shard(3).core());
+        assertEquals(4, GRID.shards().size());
+    }
+
+    @Test
+    void extentIsTheCoreWidenedByTheOverlap() {
+        BoundingBox extent = GRID.shard(3).extent();
+        assertEquals(0.9, extent.south(), 1e-12);
+        assertEquals(0.9, extent.west(), 1e-12);
+        assertEquals(2.1, extent.north(), 1e-12);
+        assertEquals(2.1, extent.east(), 1e-12);
+    }
+
+    @Test
+    void shardOfUsesTheCore() {
+        assertEquals(0, GRID.shardOf(new Point(0.5, 0.5)).id());
+        assertEquals(1, GRID.shardOf(new Point(0.5, 1.5)).id());
+        assertEquals(2, GRID.shardOf(new Point(1.5, 0.5)).id());
+        assertEquals(3, GRID.shardOf(new Point(1.5, 1.5)).id());
+        // Inside shard 0's extent, but owned by shard 3
+        assertEquals(3, GRID.shardOf(new Point(1.05, 1.05)).id());
+    }
+
+    @Test
+    void pointsOnAnInnerBorderGoToTheNorthEastShard() {
+        assertEquals(3, GRID.shardOf(new Point(1, 1)).id());
+        assertEquals(1, GRID.shardOf(new Point(0, 1)).id());
+    }
+
+    @Test
+    void pointsOnTheOuterEdgeOrOutsideAreClampedToEdgeShards() {
+        assertEquals(3, GRID.shardOf(new Point(2, 2)).id());
+        assertEquals(0, GRID.shardOf(new Point(-5, -5)).id());
+        assertEquals(1, GRID.shardOf(new Point(-5, 1.5)).id());
+        assertEquals(3, GRID.shardOf(new Point(9, 9)).id());
+        assertEquals(2, GRID.shardOf(new Point(1.5, -9)).id());
+    }
+
+    @Test
+    void invalidGridsAndIdsAreRejected() {
+        assertThrows(IllegalArgumentException.class, () -> new ShardGrid(BoundingBox.EMPTY, 2, 2, 0));
+        assertThrows(IllegalArgumentException.class, () -> new ShardGrid(new BoundingBox(0, 0, 1, 1), 0, 2, 0));
+        assertThrows(IllegalArgumentException.class, () -> new ShardGrid(new BoundingBox(0, 0, 1, 1), 2, 2, -1));
+        assertThrows(IllegalArgumentException.class, () -> GRID.shard(4));
+        assertThrows(IllegalArgumentException.class, () -> GRID.shard(-1));
+    }
+}
@@ -0,0 +1,172 @@
+package com.example.mapmatchingproject.sharding;
+
+import com.example.mapmatchingproject.MapMatchingProjectApplication;
+import com.example.mapmatchingproject.io.OutputFormat;
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+import org.json.JSONArray;
+import org.json.JSONObject;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.boot.web.context.WebServerApplicationContext;
+import org.springframework.context.ConfigurableApplicationContext;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Two workers (one shard each) and a coordinator in one JVM, with Overpass replaced by a local
+ * server returning a regular road grid. Each role is its own Spring context and they only talk
+ * over HTTP on localhost, but they share a heap and a process: worker crashes and separate
+ * JVM settings are not covered. Stalled workers are covered in {@link ShardCoordinatorTest}.
+ */
+class ShardingIntegrationTest {
+
+    // Horizontal roads every STEP degrees of latitude, vertical ones every STEP of longitude
+    private static final double SOUTH = 49.23, WEST = 28.40, STEP = 0.002;
+    private static final int LINES = 51;
+    private static final Pattern BBOX = Pattern.compile("\\(([-\\d.]+),([-\\d.]+),([-\\d.]+),([-\\d.]+)\\)");
+
+    @TempDir
+    Path dir;
+
+    private HttpServer overpass;
+    private final List<String> overpassBoxes = new ArrayList<>();
+    private final List<ConfigurableApplicationContext> contexts = new ArrayList<>();
+
+    @BeforeEach
+    void startOverpass() throws IOException {
+        overpass = HttpServer.create(new InetSocketAddress("localhost", 0), 0);
+        overpass.createContext("/api/interpreter", this::serveWays);
+        overpass.start();
+    }
+
+    @AfterEach
+    void stopAll() {
+        contexts.reversed().forEach(ConfigurableApplicationContext::close);
+        overpass.stop(0);
+    }
+
+    @Test
+    void coordinatorMatchesTracesAcrossTwoWorkers() throws IOException {
+        Path traceFile = dir.resolve("traces.csv");
+        Files.writeString(traceFile, """
+                trace_id,timestamp,lat,lon
+                """ + along("east", 49.25001, 28.42, 28.48, 30) + along("west", 49.26002, 28.47, 28.43, 20));
+
+        String workerA = start("worker", "--mapmatching.shard.ids=0");
+        String workerB = start("worker", "--mapmatching.shard.ids=1");
+        assertEquals(2, overpassBoxes.size());
+
+        Path outputDir = dir.resolve("out");
+        start("coordinator",
+                "--mapmatching.shard.workers=" + workerA + "," + workerB,
+                "--mapmatching.shard.trace-file=" + traceFile,
+                "--mapmatching.output.dir=" + outputDir,
+                "--mapmatching.output.formats=CSV",
+                "--mapmatching.output.html=false");
+
+        Map<String, List<double[]>> matched = new HashMap<>();
+        Map<String, List<double[]>> gps = new HashMap<>();
+        List<String> rows = Files.readAllLines(outputDir.resolve(OutputFormat.CSV.fileName("Sharded")));
+        for (String row : rows.subList(1, rows.size())) {
+            String[] f = row.split(",");
+            double[] point = {Double.parseDouble(f[3]), Double.parseDouble(f[4])};
+            (f[1].equals("matched") ? matched : gps).computeIfAbsent(f[0], _ -> new ArrayList<>()).add(point);
+        }
+
+        assertEquals(30, matched.get("east").size());
+        assertEquals(20, matched.get("west").size());
+        for (String id : List.of("east", "west")) {
+            for (int i = 0; i < matched.get(id).size(); i++) {
+                double[] g = gps.get(id).get(i);
+                double[] m = matched.get(id).get(i);
+                // Every point is about a meter north of a road and must snap onto one nearby
+                assertTrue(Math.hypot(g[0] - m[0], g[1] - m[1]) < 5e-5, id + " point " + i + " moved too far");
+                assertTrue(onGridLine(m[0], SOUTH) || onGridLine(m[1], WEST), id + " point " + i + " is not on a road");
+            }
+        }
+    }
+
+    private static boolean onGridLine(double value, double origin) {
+        double lines = (value - origin) / STEP;
+        return Math.abs(lines - Math.round(lines)) < 1e-3;
+    }
+
+    // Starts the application in the given role on a random port and returns its url
+    private String start(String role, String... args) {
+        List<String> all = new ArrayList<>(List.of(
+                "--server.port=0",
+                "--mapmatching.shard.role=" + role,
+                "--mapmatching.shard.bounds=49.23,28.40,49.33,28.50",
+                "--mapmatching.shard.rows=1",
+                "--mapmatching.shard.cols=2",
+                "--mapmatching.shard.overlap=0.005",
+                "--mapmatching.overpass.url=http://localhost:" + overpass.getAddress().getPort() + "/api/interpreter"));
+        all.addAll(List.of(args));
+
+        ConfigurableApplicationContext context = new SpringApplicationBuilder(MapMatchingProjectApplication.class)
+                .run(all.toArray(String[]::new));
+        contexts.add(context);
+        return "http://localhost:" + ((WebServerApplicationContext) context).getWebServer().getPort();
+    }
+
+    private static String along(String id, double lat, double fromLon, double toLon, int n) {
+        StringBuilder rows = new StringBuilder();
+        for (int i = 0; i < n; i++) {
+            double lon = fromLon + (toLon - fromLon) * i / (n - 1);
+            rows.append(id).append(',').append(i).append(',').append(lat).append(',').append(lon).append('\n');
+        }
+        return rows.toString();
+    }
+
+    // Answers with the grid roads that have a node inside the requested box
+    private void serveWays(HttpExchange exchange) throws IOException {
+        Matcher m = BBOX.matcher(exchange.getRequestURI().getQuery());
+        if (!m.find()) throw new IOException("No bounding box in " + exchange.getRequestURI());
+        double south = Double.parseDouble(m.group(1)), west = Double.parseDouble(m.group(2));
+        double north = Double.parseDouble(m.group(3)), east = Double.parseDouble(m.group(4));
+        synchronized (overpassBoxes) {
+            overpassBoxes.add(m.group());
+        }
+
+        JSONArray elements = new JSONArray();
+        for (int i = 0; i < LINES; i++) {
+            double lat = SOUTH + i * STEP;
+            if (lat >= south && lat <= north) elements.put(way(i + 1, lat, WEST, lat, WEST + (LINES - 1) * STEP, LINES));
+            double lon = WEST + i * STEP;
+            if (lon >= west && lon <= east) elements.put(way(LINES + i + 1, SOUTH, lon, SOUTH + (LINES - 1) * STEP, lon, LINES));
+        }
+
+        byte[] body = new JSONObject().put("elements", elements).toString().getBytes(StandardCharsets.UTF_8);
+        exchange.getResponseHeaders().add("Content-Type", "application/json");
+        exchange.sendResponseHeaders(200, body.length);
+        try (OutputStream out = exchange.getResponseBody()) {
+            out.write(body);
+        }
+    }
+
+    private static JSONObject way(long id, double lat0, double lon0, double lat1, double lon1, int nodes) {
+        JSONArray geometry = new JSONArray();
+        for (int j = 0; j < nodes; j++) {
+            double t = (double) j / (nodes - 1);
+            geometry.put(new JSONObject().put("lat", lat0 + t * (lat1 - lat0)).put("lon", lon0 + t * (lon1 - lon0)));
+        }
+        return new JSONObject().put("type", "way").put("id", id).put("geometry", geometry);
+    }
+}
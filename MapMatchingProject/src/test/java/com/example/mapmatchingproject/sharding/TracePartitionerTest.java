@@ -0,0 +1,141 @@
+package com.example.mapmatchingproject.sharding;
+
+import com.example.mapmatchingproject.entities.Point;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static com.example.mapmatchingproject.sharding.ShardGridTest.GRID;
+import static org.junit.jupiter.api.Assertions.*;
+
+class TracePartitionerTest {
+
+    @Test
+    void traceInsideOneShardIsOnePiece() {
+        List<Point> trace = line(0.2, 0.2, 0.8, 0.8, 10);
+
+        List<TracePiece> pieces = TracePartitioner.split(trace, GRID, 3);
+
+        assertEquals(List.of(new TracePiece(GRID.shard(0), 0, 10, 0, 10)), pieces);
+    }
+
+    @Test
+    void pieceRunsToTheEndOfItsExtent() {
+        // West to east along lat 0.5 in steps of 0.1: point 10 (lon 1.05) is past the border
+        // but still inside shard 0's extent, point 11 (lon 1.15) is not
+        List<Point> trace = line(0.5, 0.05, 0.5, 1.95, 20);
+
+        List<TracePiece> pieces = TracePartitioner.split(trace, GRID, 1);
+
+        assertEquals(List.of(
+                new TracePiece(GRID.shard(0), 0, 11, 0, 11),
+                new TracePiece(GRID.shard(1), 11, 20, 10, 20)), pieces);
+    }
+
+    @Test
+    void contextStopsAtTheShardExtent() {
+        // Shard 1's extent starts at lon 0.9, so only points 9 and 10 can be context
+        List<Point> trace = line(0.5, 0.05, 0.5, 1.95, 20);
+
+        List<TracePiece> pieces = TracePartitioner.split(trace, GRID, 5);
+
+        assertEquals(9, pieces.get(1).contextFrom());
+        for (TracePiece piece : pieces) {
+            for (int i = piece.contextFrom(); i < piece.contextTo(); i++) {
+                assertTrue(piece.shard().covers(trace.get(i)), "point " + i + " outside shard " + piece.shard().id());
+            }
+        }
+    }
+
+    @Test
+    void contextIsTrimmedToContextPoints() {
+        // Points 5..9 are in shard 0's core but also inside shard 1's extent
+        List<Point> trace = new ArrayList<>(line(0.5, 0.2, 0.5, 0.6, 5));
+        trace.addAll(line(0.5, 0.91, 0.5, 0.99, 5));
+        trace.addAll(line(0.5, 1.2, 0.5, 1.8, 4));
+
+        List<TracePiece> pieces = TracePartitioner.split(trace, GRID, 2);
+
+        assertEquals(List.of(
+                new TracePiece(GRID.shard(0), 0, 10, 0, 10),
+                new TracePiece(GRID.shard(1), 10, 14, 8, 14)), pieces);
+    }
+
+    @Test
+    void traceAlongTheBorderDoesNotFlipBetweenShards() {
+        // Zig-zags across lon 1 within the 0.1 degree overlap
+        List<Point> trace = new ArrayList<>();
+        for (int i = 0; i < 20; i++) {
+            trace.add(new Point(0.1 + i * 0.04, i % 2 == 0 ? 0.97 : 1.03));
+        }
+
+        List<TracePiece> pieces = TracePartitioner.split(trace, GRID, 3);
+
+        assertEquals(1, pieces.size());
+        assertEquals(0, pieces.getFirst().shard().id());
+        assertEquals(trace.size(), pieces.getFirst().size());
+    }
+
+    @Test
+    void pointsOutsideTheGridStayWithTheirEdgeShard() {
+        // Leaves the grid to the south and comes back
+        List<Point> trace = new ArrayList<>(line(0.5, 0.5, -0.5, 0.5, 6));
+        trace.addAll(line(-0.5, 0.6, 0.5, 0.6, 6));
+
+        List<TracePiece> pieces = TracePartitioner.split(trace, GRID, 3);
+
+        assertEquals(1, pieces.size());
+        assertEquals(new TracePiece(GRID.shard(0), 0, trace.size(), 0, trace.size()), pieces.getFirst());
+    }
+
+    @Test
+    void traceEntirelyOutsideTheGridIsOnePiece() {
+        List<Point> trace = line(-3, -3, -2, -2, 5);
+
+        List<TracePiece> pieces = TracePartitioner.split(trace, GRID, 3);
+
+        assertEquals(List.of(new TracePiece(GRID.shard(0), 0, 5, 0, 5)), pieces);
+    }
+
+    @Test
+    void stitchDropsContextPointsAndKeepsOrder() {
+        List<Point> trace = line(0.5, 0.05, 1.5, 1.95, 30);
+        List<TracePiece> pieces = TracePartitioner.split(trace, GRID, 4);
+        assertTrue(pieces.size() > 1);
+
+        List<List<Point>> results = new ArrayList<>();
+        for (TracePiece piece : pieces) results.add(trace.subList(piece.contextFrom(), piece.contextTo()));
+
+        List<Point> stitched = TracePartitioner.stitch(pieces, results);
+
+        assertEquals(trace.size(), stitched.size());
+        for (int i = 0; i < trace.size(); i++) assertSame(trace.get(i), stitched.get(i));
+    }
+
+    @Test
+    void stitchRejectsResultsOfTheWrongSize() {
+        List<Point> trace = line(0.5, 0.05, 0.5, 1.95, 20);
+        List<TracePiece> pieces = TracePartitioner.split(trace, GRID, 2);
+
+        List<List<Point>> results = new ArrayList<>();
+        for (TracePiece piece : pieces) results.add(trace.subList(piece.from(), piece.to()));
+
+        assertThrows(IllegalStateException.class, () -> TracePartitioner.stitch(pieces, results));
+    }
+
+    @Test
+    void emptyTraceHasNoPieces() {
+        assertTrue(TracePartitioner.split(List.of(), GRID, 3).isEmpty());
+        assertTrue(TracePartitioner.stitch(List.of(), List.of()).isEmpty());
+    }
+
+    private static List<Point> line(double lat0, double lon0, double lat1, double lon1, int n) {
+        List<Point> points = new ArrayList<>(n);
+        for (int i = 0; i < n; i++) {
+            double t = n == 1 ? 0 : (double) i / (n - 1);
+            points.add(new Point(lat0 + t * (lat1 - lat0), lon0 + t * (lon1 - lon0)));
+        }
+        return points;
+    }
+}
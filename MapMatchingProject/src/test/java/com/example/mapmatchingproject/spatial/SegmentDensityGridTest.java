@@ -0,0 +1,73 @@
+package com.example.mapmatchingproject.spatial;
+
+import com.example.mapmatchingproject.entities.Point;
+import com.example.mapmatchingproject.entities.RoadSegment;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class SegmentDensityGridTest {
+
+    // Cells of exactly one degree
+    private static final double UNIT_RADIUS = 1 / Math.sqrt(Math.PI);
+
+    @Test
+    void segmentCountsInEveryCellItsBoxOverlaps() {
+        List<RoadSegment> segments = List.of(new RoadSegment(new Point(0.5, 0.5), new Point(1.5, 2.5)));
+        SegmentDensityGrid grid = SegmentDensityGrid.of(UNIT_RADIUS, segments.size(), segments::get);
+
+        assertEquals(6, grid.occupiedCells());
+        assertEquals(1, grid.count(new Point(0.1, 2.9)));
+        assertEquals(1, grid.count(new Point(1.9, 0.1)));
+        assertEquals(0, grid.count(new Point(2.5, 0.5)));
+        assertEquals(0, grid.count(new Point(0.5, 3.5)));
+    }
+
+    @Test
+    void negativeCoordinatesUseTheirOwnCells() {
+        List<RoadSegment> segments = List.of(
+                new RoadSegment(new Point(-0.5, -0.5), new Point(-0.4, -0.4)),
+                new RoadSegment(new Point(0.4, 0.4), new Point(0.5, 0.5)));
+        SegmentDensityGrid grid = SegmentDensityGrid.of(UNIT_RADIUS, segments.size(), segments::get);
+
+        assertEquals(1, grid.count(new Point(-0.9, -0.9)));
+        assertEquals(1, grid.count(new Point(0.1, 0.1)));
+        assertEquals(0, grid.count(new Point(-0.1, 0.1)));
+    }
+
+    @Test
+    void approximatesCandidatesWithinTheRadius() {
+        // Short segments on a regular 0.001 degree street grid
+        double step = 0.001, radius = 0.003;
+        List<RoadSegment> segments = new ArrayList<>();
+        for (int i = 0; i <= 100; i++) {
+            for (int j = 0; j < 100; j++) {
+                segments.add(new RoadSegment(new Point(i * step, j * step), new Point(i * step, (j + 1) * step)));
+                segments.add(new RoadSegment(new Point(j * step, i * step), new Point((j + 1) * step, i * step)));
+            }
+        }
+        SegmentDensityGrid grid = SegmentDensityGrid.of(radius, segments.size(), segments::get);
+
+        Random random = new Random(7);
+        long estimated = 0, exact = 0;
+        for (int k = 0; k < 500; k++) {
+            Point p = new Point(0.02 + random.nextDouble() * 0.06, 0.02 + random.nextDouble() * 0.06);
+            estimated += grid.count(p);
+            for (RoadSegment seg : segments) {
+                Point q = seg.project(p);
+                if (Math.hypot(q.getLat() - p.getLat(), q.getLon() - p.getLon()) <= radius) exact++;
+            }
+        }
+        assertEquals(1.0, (double) estimated / exact, 0.3);
+    }
+
+    @Test
+    void radiusMustBePositive() {
+        assertThrows(IllegalArgumentException.class, () -> SegmentDensityGrid.of(0, 0, _ -> null));
+        assertThrows(IllegalArgumentException.class, () -> SegmentDensityGrid.of(Double.NaN, 0, _ -> null));
+    }
+}
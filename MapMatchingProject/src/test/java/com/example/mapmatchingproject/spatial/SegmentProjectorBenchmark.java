@@ -0,0 +1,71 @@
+package com.example.mapmatchingproject.spatial;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * JMH comparison of the vector and scalar projection kernels, in ns per query.
+ * Not part of the test run; {@code mvn test -Pbenchmark} runs it instead of the tests.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(value = 2, jvmArgsAppend = {"--enable-preview", "--add-modules", "jdk.incubator.vector"})
+public class SegmentProjectorBenchmark {
+
+    private static final int QUERIES = 256;
+    // 50 m search radius
+    private static final double MAX_DIST_SQ = Math.pow(50.0 / 111000.0, 2);
+
+    @Param({"1000", "10000", "100000"})
+    public int segments;
+
+    @Param({"scalar", "vector"})
+    public String kernel;
+
+    private SegmentProjector projector;
+    private SegmentStore store;
+    private double[] qx;
+    private double[] qy;
+
+    @Setup
+    public void setup() {
+        projector = kernel.equals("vector") ? new VectorSegmentProjector() : new ScalarSegmentProjector();
+        Random random = new Random(1);
+        store = SegmentProjectorEquivalenceTest.randomStore(random, segments);
+        qx = new double[QUERIES];
+        qy = new double[QUERIES];
+        for (int q = 0; q < QUERIES; q++) {
+            qx[q] = 28.40 + random.nextDouble() * 0.02;
+            qy[q] = 49.23 + random.nextDouble() * 0.02;
+        }
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(QUERIES)
+    public void nearest(Blackhole blackhole) {
+        for (int q = 0; q < QUERIES; q++) blackhole.consume(projector.nearest(store, qx[q], qy[q]));
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(QUERIES)
+    public void forEachWithin(Blackhole blackhole) {
+        for (int q = 0; q < QUERIES; q++) projector.forEachWithin(store, qx[q], qy[q], MAX_DIST_SQ, blackhole::consume);
+    }
+}
@@ -0,0 +1,126 @@
+package com.example.mapmatchingproject.spatial;
+
+import com.example.mapmatchingproject.entities.Point;
+import com.example.mapmatchingproject.entities.RoadSegment;
+import jdk.incubator.vector.DoubleVector;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+class SegmentProjectorEquivalenceTest {
+
+    private static final int LANES = DoubleVector.SPECIES_PREFERRED.length();
+
+    private final ScalarSegmentProjector scalar = new ScalarSegmentProjector();
+    private final VectorSegmentProjector vector = new VectorSegmentProjector();
+
+    @Test
+    void nearestMatchesScalarForAllTailLengths() {
+        Random random = new Random(26);
+        for (int size : sizes()) {
+            SegmentStore store = randomStore(random, size);
+            for (int q = 0; q < 200; q++) {
+                double px = 28.40 + random.nextDouble() * 0.02;
+                double py = 49.23 + random.nextDouble() * 0.02;
+                assertEquals(scalar.nearest(store, px, py), vector.nearest(store, px, py), "size " + size);
+            }
+        }
+    }
+
+    @Test
+    void forEachWithinMatchesScalarForAllTailLengths() {
+        Random random = new Random(27);
+        for (int size : sizes()) {
+            SegmentStore store = randomStore(random, size);
+            for (int q = 0; q < 200; q++) {
+                double px = 28.40 + random.nextDouble() * 0.02;
+                double py = 49.23 + random.nextDouble() * 0.02;
+                double maxDistSq = Math.pow(random.nextDouble() * 0.003, 2);
+                assertEquals(within(scalar, store, px, py, maxDistSq), within(vector, store, px, py, maxDistSq), "size " + size);
+            }
+        }
+    }
+
+    @Test
+    void boundaryDistanceIsIncludedByBothKernels() {
+        Random random = new Random(28);
+        SegmentStore store = randomStore(random, 3 * LANES + 1);
+        for (int i = 0; i < store.size(); i++) {
+            double px = 28.41, py = 49.24;
+            // Exactly the distance of segment i: it must be reported by both
+            double maxDistSq = ScalarSegmentProjector.distanceSq(store, i, px, py);
+            List<Integer> expected = within(scalar, store, px, py, maxDistSq);
+            assertEquals(expected, within(vector, store, px, py, maxDistSq));
+            assertEquals(true, expected.contains(i));
+        }
+    }
+
+    @Test
+    void tiesGoToTheLowestIndex() {
+        RoadSegment seg = new RoadSegment(new Point(49.0, 28.0), new Point(49.001, 28.001));
+        for (int size : sizes()) {
+            if (size == 0) continue;
+            SegmentStore store = SegmentStore.from(java.util.Collections.nCopies(size, seg));
+            assertEquals(0, scalar.nearest(store, 28.0005, 49.0));
+            assertEquals(0, vector.nearest(store, 28.0005, 49.0));
+        }
+    }
+
+    @Test
+    void degenerateSegmentsProjectOntoTheirStart() {
+        List<RoadSegment> segments = new ArrayList<>();
+        for (int i = 0; i < 2 * LANES + 1; i++) {
+            Point p = new Point(49.0 + i * 0.001, 28.0);
+            segments.add(new RoadSegment(p, new Point(p)));
+        }
+        SegmentStore store = SegmentStore.from(segments);
+        for (int i = 0; i < store.size(); i++) {
+            double py = 49.0 + i * 0.001 + 0.0001;
+            assertEquals(i, scalar.nearest(store, 28.0, py));
+            assertEquals(i, vector.nearest(store, 28.0, py));
+        }
+    }
+
+    @Test
+    void emptyStoreHasNoNearestSegment() {
+        SegmentStore store = SegmentStore.from(List.of());
+        assertEquals(-1, scalar.nearest(store, 28.0, 49.0));
+        assertEquals(-1, vector.nearest(store, 28.0, 49.0));
+        assertEquals(List.of(), within(vector, store, 28.0, 49.0, 1.0));
+    }
+
+    // Around every multiple of the lane count, so the scalar tail sees 0..LANES-1 segments
+    static int[] sizes() {
+        return new int[]{0, 1, LANES - 1, LANES, LANES + 1, 2 * LANES + 3, 7 * LANES - 1, 1000 + LANES - 1};
+    }
+
+    /**
+     * Random short segments; about one in ten is degenerate and one in ten duplicates an earlier one.
+     */
+    static SegmentStore randomStore(Random random, int size) {
+        List<RoadSegment> segments = new ArrayList<>(size);
+        for (int i = 0; i < size; i++) {
+            int kind = random.nextInt(10);
+            if (kind == 0 && !segments.isEmpty()) {
+                RoadSegment earlier = segments.get(random.nextInt(segments.size()));
+                segments.add(new RoadSegment(earlier.a(), earlier.b()));
+                continue;
+            }
+            Point a = new Point(49.23 + random.nextDouble() * 0.02, 28.40 + random.nextDouble() * 0.02);
+            Point b = kind == 1 ? new Point(a)
+                    : new Point(a.getLat() + (random.nextDouble() - 0.5) * 0.002, a.getLon() + (random.nextDouble() - 0.5) * 0.002);
+            segments.add(new RoadSegment(a, b));
+        }
+        return SegmentStore.from(segments);
+    }
+
+    private static List<Integer> within(SegmentProjector projector, SegmentStore store, double px, double py, double maxDistSq) {
+        List<Integer> hits = new ArrayList<>();
+        projector.forEachWithin(store, px, py, maxDistSq, hits::add);
+        return hits;
+    }
+}